@@ -0,0 +1,141 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Normalizing and matching one author email against ignore lists of each kind of entry
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AuthorMatcherBenchmark {
+    @Param({"2", "100", "10000", "100000"})
+    public int ignoredAuthors;
+
+    private String ignoreList;
+    private AuthorMatcher literals;
+    private AuthorMatcher domains;
+    private AuthorMatcher globs;
+    private AuthorMatcher file;
+    private File directory;
+    private String ignoredEmail;
+    private String otherEmail;
+    private String subdomainEmail;
+    private String botEmail;
+
+    @Setup
+    public void setUp() throws IOException {
+        ignoreList = SyntheticData.ignoreList(ignoredAuthors);
+        literals = AuthorMatcher.compile(ignoreList);
+
+        StringBuilder domainList = new StringBuilder();
+        StringBuilder globList = new StringBuilder();
+        for (int i = 0; i < ignoredAuthors; i++) {
+            domainList.append("@team-").append(i).append(".ci.example.com,");
+            globList.append("bot-").append(i).append("-*@ci.example.com,");
+        }
+        domains = AuthorMatcher.compile(domainList.toString());
+        globs = AuthorMatcher.compile(globList.toString());
+
+        directory = Files.createTempDirectory("ignore-list").toFile();
+        File source = new File(directory, "list.txt");
+        Files.write(source.toPath(), ignoreList.replace(',', '\n').getBytes(StandardCharsets.UTF_8));
+        file = AuthorMatcher.compile(null).withEmailSet(MappedEmailSet.load(source, new File(directory, "list.set")));
+
+        ignoredEmail = " Service-Account-" + (ignoredAuthors - 1) + "@CI.example.com";
+        otherEmail = "john.galt@whois.com";
+        subdomainEmail = "build@eu.team-" + (ignoredAuthors - 1) + ".ci.example.com";
+        botEmail = "bot-" + (ignoredAuthors - 1) + "-renovate@ci.example.com";
+    }
+
+    @Benchmark
+    public String normalize() {
+        return AuthorMatcher.normalize(ignoredEmail);
+    }
+
+    @Benchmark
+    public boolean matchLiteral() {
+        return literals.matches(ignoredEmail);
+    }
+
+    @Benchmark
+    public boolean matchNone() {
+        return literals.matches(otherEmail);
+    }
+
+    @Benchmark
+    public boolean matchFileLiteral() {
+        return file.matches(ignoredEmail);
+    }
+
+    @Benchmark
+    public boolean matchFileNone() {
+        return file.matches(otherEmail);
+    }
+
+    @Benchmark
+    public boolean matchDomain() {
+        return domains.matches(subdomainEmail);
+    }
+
+    @Benchmark
+    public boolean matchGlob() {
+        return globs.matches(botEmail);
+    }
+
+    @Benchmark
+    public AuthorMatcher compile() {
+        return AuthorMatcher.compile(ignoreList);
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (File f : directory.listFiles()) {
+            f.delete();
+        }
+        directory.delete();
+    }
+}
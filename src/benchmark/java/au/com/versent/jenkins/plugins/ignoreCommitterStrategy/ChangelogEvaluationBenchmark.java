@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import hudson.plugins.git.GitChangeLogParser;
+import hudson.plugins.git.GitChangeSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Parsing, normalizing and matching every commit of a changelog that contains no decisive commit
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ChangelogEvaluationBenchmark {
+    // held so that the level is not reset when the logger is collected
+    private static final Logger LOGGER = Logger.getLogger(ChangelogEvaluator.class.getName());
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int commits;
+
+    @Param({"2", "100", "10000", "100000"})
+    public int ignoredAuthors;
+
+    private byte[] changelog;
+    private AuthorMatcher matcher;
+
+    @Setup
+    public void setUp() {
+        LOGGER.setLevel(Level.WARNING);
+        changelog = SyntheticData.changelog(commits, Math.min(ignoredAuthors, 1000));
+        matcher = AuthorMatcher.compile(SyntheticData.ignoreList(ignoredAuthors));
+    }
+
+    @Benchmark
+    public boolean evaluate() throws IOException {
+        // every author is ignored and builds are allowed for non ignored authors, so the whole changelog is read
+        ChangelogEvaluator evaluator = new ChangelogEvaluator(matcher, true);
+        // written in chunks the size of the pipe buffer changesSince copies through
+        for (int offset = 0; offset < changelog.length; offset += 8192) {
+            evaluator.write(changelog, offset, Math.min(8192, changelog.length - offset));
+        }
+        return evaluator.finish();
+    }
+
+    @Benchmark
+    public boolean gitChangeLogParser() throws IOException {
+        // what the evaluator replaces: decode every line, build every changeset, then match the authors
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(changelog), StandardCharsets.UTF_8))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lines.add(line);
+            }
+        }
+        for (GitChangeSet changeSet : new GitChangeLogParser(true).parse(lines)) {
+            String email = changeSet.getAuthorEmail();
+            if (email == null || !matcher.matches(AuthorMatcher.normalize(email))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
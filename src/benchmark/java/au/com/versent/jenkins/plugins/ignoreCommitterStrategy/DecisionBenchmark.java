@@ -0,0 +1,121 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import jenkins.plugins.git.AbstractGitSCMSource;
+import jenkins.plugins.git.GitSCMFileSystem;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.SCMSourceOwner;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The whole of {@link IgnoreCommitterStrategy#isAutomaticBuild} against a filesystem that writes a synthetic changelog
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DecisionBenchmark {
+    // held so that the level is not reset when the logger is collected
+    private static final Logger LOGGER = Logger.getLogger(IgnoreCommitterStrategy.class.getPackage().getName());
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int commits;
+
+    @Param({"2", "100", "10000", "100000"})
+    public int ignoredAuthors;
+
+    private IgnoreCommitterStrategy strategy;
+    private SCMSource source;
+    private SCMHead head;
+    private AbstractGitSCMSource.SCMRevisionImpl currRevision;
+    private AbstractGitSCMSource.SCMRevisionImpl cachedPrevRevision;
+    private int evaluations;
+
+    @Setup
+    public void setUp() throws Exception {
+        LOGGER.setLevel(Level.WARNING);
+        byte[] changelog = SyntheticData.changelog(commits, Math.min(ignoredAuthors, 1000));
+
+        head = new SCMHead("master");
+        currRevision = new AbstractGitSCMSource.SCMRevisionImpl(head, SyntheticData.hash(0));
+        cachedPrevRevision = new AbstractGitSCMSource.SCMRevisionImpl(head, SyntheticData.hash(commits));
+
+        GitSCMFileSystem fileSystem = Mockito.mock(GitSCMFileSystem.class);
+        Mockito.when(fileSystem.changesSince(Mockito.any(SCMRevision.class), Mockito.any(OutputStream.class))).thenAnswer(invocation -> {
+            OutputStream out = (OutputStream) invocation.getArguments()[1];
+            for (int offset = 0; offset < changelog.length; offset += 8192) {
+                out.write(changelog, offset, Math.min(8192, changelog.length - offset));
+            }
+            return true;
+        });
+        GitSCMFileSystem.BuilderImpl builder = Mockito.mock(GitSCMFileSystem.BuilderImpl.class);
+        Mockito.when(builder.build(Mockito.any(SCMSourceOwner.class), Mockito.any(), Mockito.any(SCMRevision.class)))
+                .thenReturn(fileSystem);
+
+        source = Mockito.mock(SCMSource.class);
+        Mockito.when(source.getOwner()).thenReturn(Mockito.mock(SCMSourceOwner.class));
+
+        strategy = new IgnoreCommitterStrategy(SyntheticData.ignoreList(ignoredAuthors), true) {
+            @Override
+            GitSCMFileSystem.Builder newFileSystemBuilder() {
+                return builder;
+            }
+        };
+        DecisionCache.get().clear();
+        strategy.isAutomaticBuild(source, head, currRevision, cachedPrevRevision);
+    }
+
+    @Benchmark
+    public boolean uncached() {
+        // a previous revision never seen before, so the changelog is read every time
+        SCMRevision prevRevision = new AbstractGitSCMSource.SCMRevisionImpl(head, SyntheticData.hash(-1 - evaluations++));
+        return strategy.isAutomaticBuild(source, head, currRevision, prevRevision);
+    }
+
+    @Benchmark
+    public boolean cached() {
+        return strategy.isAutomaticBuild(source, head, currRevision, cachedPrevRevision);
+    }
+}
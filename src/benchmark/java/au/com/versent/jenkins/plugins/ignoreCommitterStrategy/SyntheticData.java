@@ -0,0 +1,88 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Changelogs and ignore lists generated for the benchmarks, the same for every run so results stay comparable
+ */
+final class SyntheticData {
+    private SyntheticData() {
+    }
+
+    /**
+     * @param entries number of entries
+     * @return comma separated ignore list of literal emails
+     */
+    static String ignoreList(int entries) {
+        StringBuilder list = new StringBuilder();
+        for (int i = 0; i < entries; i++) {
+            if (i > 0) {
+                list.append(',');
+            }
+            list.append(email(i));
+        }
+        return list.toString();
+    }
+
+    static String email(int i) {
+        return "service-account-" + i + "@ci.example.com";
+    }
+
+    /**
+     * Changelog in the format written by {@code git whatchanged}, authors cycle through the first emails of the
+     * ignore list so that no commit decides the build before the end
+     *
+     * @param commits number of commits
+     * @param authors number of distinct authors
+     * @return changelog bytes
+     */
+    static byte[] changelog(int commits, int authors) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(commits * 400);
+        StringBuilder commit = new StringBuilder(400);
+        for (int i = 0; i < commits; i++) {
+            commit.setLength(0);
+            commit.append("commit ").append(hash(i)).append('\n')
+                    .append("tree ").append(hash(i + commits)).append('\n')
+                    .append("parent ").append(hash(i + 1)).append('\n')
+                    .append("author Service Account <").append(email(i % authors)).append("> 1363879004 +0100\n")
+                    .append("committer Jenkins <jenkins@example.com> 1363879004 +0100\n")
+                    .append('\n')
+                    .append("    [task] Synthetic change ").append(i).append('\n')
+                    .append('\n')
+                    .append(":100644 100644 ").append(hash(i).substring(0, 7)).append("... ")
+                    .append(hash(i + 2).substring(0, 7)).append("... M\tpom.xml\n")
+                    .append('\n');
+            byte[] bytes = commit.toString().getBytes(StandardCharsets.UTF_8);
+            out.write(bytes, 0, bytes.length);
+        }
+        return out.toByteArray();
+    }
+
+    static String hash(int i) {
+        return String.format("%040x", i);
+    }
+}
@@ -0,0 +1,350 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import com.cloudbees.plugins.credentials.CredentialsMatchers;
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.common.StandardUsernameCredentials;
+import com.cloudbees.plugins.credentials.domains.URIRequirementBuilder;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.Queue;
+import hudson.model.TaskListener;
+import hudson.model.queue.Tasks;
+import hudson.plugins.git.GitSCM;
+import hudson.plugins.git.UserRemoteConfig;
+import hudson.remoting.VirtualChannel;
+import hudson.util.LogTaskListener;
+import jenkins.model.Jenkins;
+import jenkins.scm.api.SCMSourceOwner;
+import org.acegisecurity.Authentication;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.RemoteConfig;
+import org.eclipse.jgit.transport.URIish;
+import org.jenkinsci.plugins.gitclient.Git;
+import org.jenkinsci.plugins.gitclient.GitClient;
+import org.jenkinsci.plugins.gitclient.RepositoryCallback;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Evaluation of a changeset on an agent, so that the git fetch and walk do not load the controller
+ * <p>
+ * Each agent keeps its own clone of a remote under {@code caches/ignore-committer-strategy} in its root directory.
+ * A remote is always evaluated on the same agent of the label while that agent is online, so its clone stays warm.
+ * The range is first walked in the clone as it is and the remote is only fetched if the range is not there yet.
+ * Only the verdict, its reason and the number of commits inspected travel back to the controller.
+ * <p>
+ * The evaluation does not take an executor of the agent. It runs with the authentication builds of the owner run
+ * as: only agents that authentication may build on are used, and only credentials it can see are sent there.
+ */
+final class AgentEvaluation {
+    private static final Logger LOGGER = Logger.getLogger(AgentEvaluation.class.getName());
+    private static final String CACHE_DIRECTORY = "ignore-committer-strategy";
+    // one fetch at a time into the clone of a remote on an agent, waiting for it can be interrupted
+    private static final ConcurrentMap<String, CloneLock> LOCKS = new ConcurrentHashMap<>();
+
+    private AgentEvaluation() {
+    }
+
+    /**
+     * Evaluate a range on an online agent of the label
+     *
+     * @param label    label expression of the agents to evaluate on
+     * @param owner    owner of the source, credentials are looked up in its context
+     * @param scm      SCM of the head
+     * @param currHash current revision
+     * @param prevHash previous revision, null for a new head
+     * @param rule     ignore rule to apply
+     * @return result, or null if no agent of the label is online or the evaluation failed there
+     */
+    @CheckForNull
+    static Result evaluate(String label, SCMSourceOwner owner, GitSCM scm, String currHash, @CheckForNull String prevHash,
+                           Rule rule) throws InterruptedException {
+        List<RemoteConfig> remotes = scm.getRepositories();
+        if (remotes.isEmpty() || remotes.get(0).getURIs().isEmpty()) {
+            return null;
+        }
+        RemoteConfig remote = remotes.get(0);
+        URIish url = remote.getURIs().get(0);
+
+        Authentication authentication = authenticationOf(owner);
+        Node node = selectNode(label, url.toString(), authentication);
+        if (node == null) {
+            LOGGER.fine(String.format("No agent with label %s is online, evaluating on the controller", label));
+            return null;
+        }
+        FilePath root = node.getRootPath();
+        if (root == null) {
+            return null;
+        }
+        FilePath cache = root.child("caches").child(CACHE_DIRECTORY).child(Util.getDigestOf(url.toString()));
+        TaskListener listener = new LogTaskListener(LOGGER, Level.FINE);
+        Walk walk = new Walk(currHash, prevHash, rule);
+
+        String key = node.getNodeName() + " " + cache.getRemote();
+        CloneLock lock = lock(key);
+        try {
+            GitClient client = Git.with(listener, new EnvVars()).in(cache).using(scm.getGitExe(node, listener)).getClient();
+            if (!client.hasGitRepo()) {
+                client.init();
+            } else {
+                Result result = client.withRepository(walk);
+                if (result.getVerdict() != null) {
+                    return result.on(node.getNodeName());
+                }
+            }
+
+            StandardUsernameCredentials credentials = lookupCredentials(owner, authentication, scm, url);
+            if (credentials != null) {
+                client.addDefaultCredentials(credentials);
+            }
+            try (RemoteLimiter.Permit permit = RemoteLimiter.get().acquire(RemoteLimiter.keyOf(url.toString()))) {
+                client.fetch_().from(url, remote.getFetchRefSpecs()).execute();
+            }
+            return client.withRepository(walk).on(node.getNodeName());
+        } catch (IOException | RuntimeException e) {
+            if (IgnoreCommitterStrategy.isInterruption(e)) {
+                // git was stopped because the evaluation was aborted, do not fall back to the controller
+                throw new InterruptedException("Evaluation on " + node.getNodeName() + " interrupted");
+            }
+            LOGGER.log(Level.WARNING, String.format("Unable to evaluate %s..%s of %s on %s, evaluating on the controller",
+                    prevHash, currHash, url, node.getNodeName()), e);
+            return null;
+        } finally {
+            unlock(key, lock);
+        }
+    }
+
+    /**
+     * Wait for the lock of a clone, creating it for the first caller
+     */
+    static CloneLock lock(String key) throws InterruptedException {
+        CloneLock lock = LOCKS.compute(key, (k, current) -> {
+            CloneLock result = current != null ? current : new CloneLock();
+            result.users++;
+            return result;
+        });
+        try {
+            lock.lock.lockInterruptibly();
+        } catch (InterruptedException e) {
+            release(key);
+            throw e;
+        }
+        return lock;
+    }
+
+    /**
+     * Release the lock of a clone, forgetting it once nobody holds or waits for it
+     */
+    static void unlock(String key, CloneLock lock) {
+        lock.lock.unlock();
+        release(key);
+    }
+
+    private static void release(String key) {
+        LOCKS.computeIfPresent(key, (k, lock) -> --lock.users == 0 ? null : lock);
+    }
+
+    /**
+     * @return number of clones locked or waited for at the moment
+     */
+    static int getLocks() {
+        return LOCKS.size();
+    }
+
+    /**
+     * @return authentication builds of the owner run as, anonymous if the owner is not built
+     */
+    private static Authentication authenticationOf(SCMSourceOwner owner) {
+        return owner instanceof Queue.Task ? Tasks.getAuthenticationOf((Queue.Task) owner) : Jenkins.ANONYMOUS;
+    }
+
+    /**
+     * @return online agent of the label that the authentication may build on, chosen by the remote, or null if none
+     */
+    @CheckForNull
+    private static Node selectNode(String label, String url, Authentication authentication) {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return null;
+        }
+        Label expression = jenkins.getLabel(label);
+        if (expression == null) {
+            return null;
+        }
+        List<Node> online = new ArrayList<>();
+        for (Node node : expression.getNodes()) {
+            Computer computer = node.toComputer();
+            if (computer != null && computer.isOnline() && computer.getChannel() != null
+                    && node.getACL().hasPermission(authentication, Computer.BUILD)) {
+                online.add(node);
+            }
+        }
+        if (online.isEmpty()) {
+            return null;
+        }
+        // the same remote goes to the same agent while the set of online agents does not change
+        online.sort(Comparator.comparing(Node::getNodeName));
+        return online.get(Math.floorMod(url.hashCode(), online.size()));
+    }
+
+    @CheckForNull
+    private static StandardUsernameCredentials lookupCredentials(SCMSourceOwner owner, Authentication authentication,
+                                                                 GitSCM scm, URIish url) {
+        List<UserRemoteConfig> remotes = scm.getUserRemoteConfigs();
+        String credentialsId = remotes.isEmpty() ? null : remotes.get(0).getCredentialsId();
+        if (credentialsId == null) {
+            return null;
+        }
+        return CredentialsMatchers.firstOrNull(
+                CredentialsProvider.lookupCredentials(StandardUsernameCredentials.class, owner, authentication,
+                        URIRequirementBuilder.fromUri(url.toString()).build()),
+                CredentialsMatchers.allOf(CredentialsMatchers.withId(credentialsId), GitClient.CREDENTIALS_MATCHER));
+    }
+
+    /**
+     * Lock of the clone of a remote on an agent, with the number of callers holding or waiting for it
+     */
+    static final class CloneLock {
+        private final ReentrantLock lock = new ReentrantLock();
+        // only changed while the map entry of the lock is computed
+        private int users;
+    }
+
+    /**
+     * Ignore rule of a strategy in a form that can be sent to an agent
+     */
+    static final class Rule implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String ignoredAuthors;
+        private final boolean allowBuildIfNotExcludedAuthor;
+        private final int maxCommits;
+        private final boolean buildWhenCommitLimitReached;
+        // read on the controller, the agent applies the changelog limit the controller would
+        private final int maxChangelog;
+
+        Rule(@CheckForNull String ignoredAuthors, boolean allowBuildIfNotExcludedAuthor, int maxCommits,
+             boolean buildWhenCommitLimitReached) {
+            this.ignoredAuthors = ignoredAuthors;
+            this.allowBuildIfNotExcludedAuthor = allowBuildIfNotExcludedAuthor;
+            this.maxCommits = maxCommits;
+            this.buildWhenCommitLimitReached = buildWhenCommitLimitReached;
+            this.maxChangelog = GitSCM.MAX_CHANGELOG;
+        }
+
+        ChangelogEvaluator newEvaluator() {
+            return new ChangelogEvaluator(AuthorMatcher.shared(ignoredAuthors), allowBuildIfNotExcludedAuthor)
+                    .limitCommits(maxCommits, buildWhenCommitLimitReached)
+                    .truncateAfter(maxChangelog)
+                    .withoutStatistics();
+        }
+    }
+
+    /**
+     * Walks the range in the clone on the agent
+     */
+    static final class Walk implements RepositoryCallback<Result> {
+        private static final long serialVersionUID = 1L;
+
+        private final String currHash;
+        private final String prevHash;
+        private final Rule rule;
+
+        Walk(String currHash, @CheckForNull String prevHash, Rule rule) {
+            this.currHash = currHash;
+            this.prevHash = prevHash;
+            this.rule = rule;
+        }
+
+        @Override
+        public Result invoke(Repository repository, VirtualChannel channel) throws IOException, InterruptedException {
+            ChangelogEvaluator evaluator = rule.newEvaluator();
+            Boolean verdict = new RangeWalk(currHash, prevHash, evaluator).invoke(repository);
+            return new Result(verdict, evaluator.getReason(), evaluator.getCommits());
+        }
+    }
+
+    /**
+     * What an agent sends back: the verdict, the reason naming the decisive author, and nothing about other commits
+     */
+    static final class Result implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Boolean verdict;
+        private final String reason;
+        private final int commits;
+        private transient String nodeName;
+
+        Result(@CheckForNull Boolean verdict, @CheckForNull String reason, int commits) {
+            this.verdict = verdict;
+            this.reason = reason;
+            this.commits = commits;
+        }
+
+        private Result on(String nodeName) {
+            this.nodeName = nodeName;
+            return this;
+        }
+
+        /**
+         * @return verdict, or null if the range is not in the clone on the agent
+         */
+        @CheckForNull
+        Boolean getVerdict() {
+            return verdict;
+        }
+
+        @CheckForNull
+        String getReason() {
+            return reason;
+        }
+
+        int getCommits() {
+            return commits;
+        }
+
+        /**
+         * @return name of the agent the evaluation ran on
+         */
+        String getNodeName() {
+            return nodeName;
+        }
+    }
+}
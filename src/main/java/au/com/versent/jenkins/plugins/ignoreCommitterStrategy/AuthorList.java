@@ -0,0 +1,97 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.util.FormValidation;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+/**
+ * Named list of ignored authors defined once in the global configuration, see {@link IgnoredAuthorLists}
+ * <p>
+ * A list never changes once created, saving the global configuration replaces it. The list is compiled once and the
+ * matcher is shared by every strategy that refers to it, see {@link AuthorMatcher#shared}.
+ */
+public final class AuthorList extends AbstractDescribableImpl<AuthorList> {
+    private final String id;
+    private final String authors;
+    private transient AuthorMatcher matcher;
+
+    @DataBoundConstructor
+    public AuthorList(String id, String authors) {
+        this.id = Util.fixEmptyAndTrim(id);
+        this.authors = Util.fixNull(authors).trim();
+        this.matcher = AuthorMatcher.shared(this.authors);
+    }
+
+    /**
+     * Compile the list loaded from disk, transient fields are not restored by XStream
+     *
+     * @return this list
+     */
+    protected Object readResolve() {
+        matcher = AuthorMatcher.shared(authors);
+        return this;
+    }
+
+    /**
+     * @return id strategies refer to the list by, or null if not set
+     */
+    @CheckForNull
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return comma separated list of ignored authors
+     */
+    public String getAuthors() {
+        return authors;
+    }
+
+    AuthorMatcher getMatcher() {
+        return matcher;
+    }
+
+    @Extension
+    public static class DescriptorImpl extends Descriptor<AuthorList> {
+        @Override
+        public String getDisplayName() {
+            return "Ignored author list";
+        }
+
+        public FormValidation doCheckId(@QueryParameter String value) {
+            return Util.fixEmptyAndTrim(value) == null ? FormValidation.error("The list needs an id") : FormValidation.ok();
+        }
+
+        public FormValidation doCheckAuthors(@QueryParameter String value) {
+            return IgnoreCommitterStrategy.DescriptorImpl.checkAuthors(value);
+        }
+    }
+}
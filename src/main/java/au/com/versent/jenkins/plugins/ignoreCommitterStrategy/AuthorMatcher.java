@@ -0,0 +1,332 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Ignored author emails compiled once from the comma-separated configuration string
+ * <p>
+ * Entries are literal emails, domains such as {@code @ci.corp.example}, globs such as
+ * {@code *[bot]@users.noreply.github.com} or regular expressions between slashes such as {@code /renovate-.+@corp/}.
+ * Literal emails are looked up in a hash table, domains in a {@link DomainTrie}, globs are combined into one
+ * {@link GlobAutomaton} and regular expressions into one alternation. Literal emails read from an ignore list file
+ * are looked up in its {@link MappedEmailSet}.
+ * <p>
+ * Author emails are compared case-insensitively as described in {@link CaseFolding}, in place. Matching an author
+ * against literal emails, domains and globs allocates nothing.
+ * <p>
+ * Instances are immutable and shared by every evaluation of the owning strategy, and through {@link #shared} by every
+ * strategy with an equivalent ignore list
+ */
+final class AuthorMatcher {
+    private static final Logger LOGGER = Logger.getLogger(AuthorMatcher.class.getName());
+    // matchers in use by canonical ignore list
+    private static final WeakRegistry<String, AuthorMatcher> SHARED = new WeakRegistry<>();
+
+    private final Set<String> entries;
+    private final EmailTable emails;
+    private final DomainTrie domains;
+    @CheckForNull
+    private final GlobAutomaton globs;
+    @CheckForNull
+    private final Pattern patterns;
+    @CheckForNull
+    private final MappedEmailSet emailSet;
+
+    private AuthorMatcher(Set<String> entries, EmailTable emails, DomainTrie domains, @CheckForNull GlobAutomaton globs,
+                          @CheckForNull Pattern patterns, @CheckForNull MappedEmailSet emailSet) {
+        this.entries = entries;
+        this.emails = emails;
+        this.domains = domains;
+        this.globs = globs;
+        this.patterns = patterns;
+        this.emailSet = emailSet;
+    }
+
+    /**
+     * Compile comma-separated list of ignored authors
+     *
+     * @param ignoredAuthors comma separated list of ignored authors, may be null
+     * @return matcher for the normalized author emails
+     */
+    static AuthorMatcher compile(@CheckForNull String ignoredAuthors) {
+        return compile(ignoredAuthors, GlobAutomaton.DEFAULT_MAX_STATES);
+    }
+
+    /**
+     * Compile comma-separated list of ignored authors, or reuse the matcher of an equivalent list that is in use
+     *
+     * @param ignoredAuthors comma separated list of ignored authors, may be null
+     * @return matcher for the normalized author emails, shared with other strategies
+     */
+    static AuthorMatcher shared(@CheckForNull String ignoredAuthors) {
+        return SHARED.get(canonical(ignoredAuthors), AuthorMatcher::compile);
+    }
+
+    /**
+     * Canonical form of an ignore list, the same for lists that differ only in case, spacing, order or repeated
+     * entries
+     *
+     * @param ignoredAuthors comma separated list of ignored authors, may be null
+     * @return sorted, comma separated, normalized entries
+     */
+    static String canonical(@CheckForNull String ignoredAuthors) {
+        if (ignoredAuthors == null) {
+            return "";
+        }
+        Set<String> entries = new TreeSet<>();
+        for (String author : ignoredAuthors.split(",")) {
+            String entry = author.trim();
+            // patterns are case-insensitive already, but their case is part of the syntax
+            String canonical = isRegex(entry) ? entry : normalize(entry);
+            if (!canonical.isEmpty()) {
+                entries.add(canonical);
+            }
+        }
+        return String.join(",", entries);
+    }
+
+    static AuthorMatcher compile(@CheckForNull String ignoredAuthors, int maxGlobStates) {
+        Set<String> entries = new LinkedHashSet<>();
+        Set<String> emails = new HashSet<>();
+        DomainTrie domains = new DomainTrie();
+        List<String> globs = new ArrayList<>();
+        List<String> regexes = new ArrayList<>();
+        if (ignoredAuthors != null) {
+            for (String author : ignoredAuthors.split(",")) {
+                String entry = author.trim();
+                if (isPartialRegex(entry)) {
+                    LOGGER.warning(String.format("Skipping incomplete ignored author pattern %s, patterns cannot contain"
+                            + " commas", entry));
+                    continue;
+                }
+                if (isRegex(entry)) {
+                    String regex = entry.substring(1, entry.length() - 1);
+                    String problem = checkRegex(regex);
+                    if (problem != null) {
+                        LOGGER.warning(String.format("Skipping invalid ignored author pattern %s: %s", entry, problem));
+                        continue;
+                    }
+                    regexes.add(regex);
+                    entries.add(entry);
+                    continue;
+                }
+
+                String email = normalize(entry);
+                if (email.isEmpty() || !entries.add(email)) {
+                    continue;
+                }
+                if (GlobAutomaton.isGlob(email)) {
+                    globs.add(email);
+                } else if (email.startsWith("@")) {
+                    if (!domains.add(email.substring(1))) {
+                        LOGGER.warning(String.format("Skipping invalid ignored author domain %s", entry));
+                        entries.remove(email);
+                    }
+                } else {
+                    emails.add(email);
+                }
+            }
+        }
+
+        GlobAutomaton automaton = null;
+        if (!globs.isEmpty()) {
+            automaton = GlobAutomaton.compile(globs, maxGlobStates);
+            if (automaton == null) {
+                // pathological pattern sets, match the globs as regular expressions rather than not at all
+                LOGGER.warning(String.format("Ignored author globs need more than %d automaton states, matching them one by one",
+                        maxGlobStates));
+                for (String glob : globs) {
+                    regexes.add(globToRegex(glob));
+                }
+            }
+        }
+
+        Pattern pattern = null;
+        if (!regexes.isEmpty()) {
+            StringBuilder alternation = new StringBuilder();
+            for (String regex : regexes) {
+                if (alternation.length() > 0) {
+                    alternation.append('|');
+                }
+                alternation.append("(?:").append(regex).append(')');
+            }
+            pattern = Pattern.compile(alternation.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        }
+
+        return new AuthorMatcher(Collections.unmodifiableSet(entries), new EmailTable(emails), domains,
+                automaton, pattern, null);
+    }
+
+    /**
+     * @param entry trimmed ignore list entry
+     * @return true if the entry is a regular expression between slashes
+     */
+    static boolean isRegex(String entry) {
+        return entry.length() > 2 && entry.startsWith("/") && entry.endsWith("/");
+    }
+
+    /**
+     * @param entry trimmed ignore list entry
+     * @return true if the entry has a slash at one end only, like either half of a pattern split at a comma
+     */
+    static boolean isPartialRegex(String entry) {
+        return (entry.startsWith("/") || entry.endsWith("/")) && !isRegex(entry);
+    }
+
+    /**
+     * @param regex regular expression without the enclosing slashes
+     * @return description of the syntax error, or null if the expression is valid
+     */
+    @CheckForNull
+    static String checkRegex(String regex) {
+        try {
+            Pattern.compile(regex);
+            return null;
+        } catch (PatternSyntaxException e) {
+            return e.getDescription();
+        }
+    }
+
+    private static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int literalStart = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                if (i > literalStart) {
+                    regex.append(Pattern.quote(glob.substring(literalStart, i)));
+                }
+                regex.append(c == '*' ? ".*" : ".");
+                literalStart = i + 1;
+            }
+        }
+        if (literalStart < glob.length()) {
+            regex.append(Pattern.quote(glob.substring(literalStart)));
+        }
+        return regex.toString();
+    }
+
+    /**
+     * Normalize author email the same way for configured and committed addresses
+     *
+     * @param email author email
+     * @return trimmed, case folded email
+     */
+    static String normalize(CharSequence email) {
+        int start = CaseFolding.trimStart(email);
+        return CaseFolding.fold(email, start, CaseFolding.trimEnd(email, start));
+    }
+
+    /**
+     * @param emailSet emails of an ignore list file, or null for none
+     * @return matcher for the same entries that also ignores the emails of the set
+     */
+    AuthorMatcher withEmailSet(@CheckForNull MappedEmailSet emailSet) {
+        return emailSet == this.emailSet ? this : new AuthorMatcher(entries, emails, domains, globs, patterns, emailSet);
+    }
+
+    /**
+     * Determine if author email is in the ignore list
+     *
+     * @param email author email as recorded in the commit
+     * @return true if author is ignored
+     */
+    boolean matches(CharSequence email) {
+        int start = CaseFolding.trimStart(email);
+        int end = CaseFolding.trimEnd(email, start);
+        return emails.contains(email, start, end)
+                || domains.size() > 0 && domains.matches(email, start, end)
+                || globs != null && globs.matches(email, start, end)
+                || patterns != null && patterns.matcher(email).region(start, end).matches()
+                || emailSet != null && emailSet.contains(email, start, end);
+    }
+
+    /**
+     * @return number of configured ignored author entries, not counting the emails of an ignore list file
+     */
+    int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return entries.toString();
+    }
+
+    /**
+     * Literal emails in an open addressing table keyed by the hash of the folded email
+     */
+    private static final class EmailTable {
+        private final String[] emails;
+        private final int[] hashes;
+        private final int mask;
+
+        EmailTable(Set<String> normalized) {
+            int capacity = 2;
+            while (capacity * 3 < normalized.size() * 4 + 4) {
+                capacity *= 2;
+            }
+            emails = new String[capacity];
+            hashes = new int[capacity];
+            mask = capacity - 1;
+            for (String email : normalized) {
+                // normalized emails are folded already, so their own hash is the hash of any spelling of them
+                int hash = email.hashCode();
+                int slot = spread(hash) & mask;
+                while (emails[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                emails[slot] = email;
+                hashes[slot] = hash;
+            }
+        }
+
+        boolean contains(CharSequence text, int start, int end) {
+            int hash = CaseFolding.hash(text, start, end);
+            for (int slot = spread(hash) & mask; emails[slot] != null; slot = (slot + 1) & mask) {
+                if (hashes[slot] == hash && CaseFolding.regionMatches(emails[slot], text, start, end)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
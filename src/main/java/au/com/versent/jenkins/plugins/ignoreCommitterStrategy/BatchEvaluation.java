@@ -0,0 +1,401 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TopLevelItem;
+import jenkins.branch.Branch;
+import jenkins.branch.BranchProjectFactory;
+import jenkins.branch.MultiBranchProject;
+import jenkins.plugins.git.GitSCMFileSystem;
+import jenkins.scm.api.SCMSource;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Verdicts of every branch of a source, evaluated ahead when the first head of the source is evaluated during a
+ * branch indexing run
+ * <p>
+ * Branch indexing asks about one head at a time. The fetch for the first head brings every branch of the remote into
+ * the pooled repository, so the ranges of the other branches, from the revision last built by their job to the
+ * revision just fetched, are known right away. They are walked on the prefetch threads of {@link EvaluationExecutor}
+ * while indexing carries on, each thread with its own {@link RevWalk} that remembers the author of every commit it
+ * reads, so history that several branches have in common is read once per thread. Later calls for those heads pick
+ * up the verdict computed here, waiting for it if it is still being walked, without building an SCM.
+ * <p>
+ * Heads that are not plain branches, branches without a built revision and ranges that changed since are evaluated
+ * one at a time as before.
+ * <p>
+ * An interrupted walk stops handing out ranges and interrupts the threads helping it, the ranges left are evaluated
+ * one at a time, if at all.
+ */
+final class BatchEvaluation {
+    private static final Logger LOGGER = Logger.getLogger(BatchEvaluation.class.getName());
+    // most ranges evaluated ahead for one source
+    private static final int MAX_RANGES = 1000;
+
+    private final Map<String, Pending> ranges = new ConcurrentHashMap<>();
+    private volatile FutureTask<Void> task;
+    private volatile boolean cancelled;
+
+    /**
+     * Wait for the verdict evaluated ahead for exactly this range
+     *
+     * @return range with its verdict, or null if the range was not evaluated ahead or could not be
+     */
+    @CheckForNull
+    Range await(String headName, @CheckForNull String prevHash, @CheckForNull String currHash)
+            throws InterruptedException {
+        Pending pending = ranges.get(headName);
+        if (pending == null || !Objects.equals(pending.prevHash, prevHash) || !Objects.equals(pending.currHash, currHash)) {
+            return null;
+        }
+        FutureTask<Void> queued = task;
+        if (!pending.result.isDone() && queued != null) {
+            // still queued behind other sources, run it here rather than wait for a prefetch thread
+            queued.run();
+        }
+        try {
+            return pending.result.get();
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stop evaluating ahead, for a branch indexing run that has finished or was aborted
+     */
+    void cancel() {
+        cancelled = true;
+        FutureTask<Void> queued = task;
+        if (queued != null) {
+            queued.cancel(true);
+        }
+        // a task cancelled before it started never completes its ranges, nobody must wait for them
+        for (Pending pending : ranges.values()) {
+            pending.complete(null);
+        }
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Start evaluating the ranges of the given head and of every branch of the source that is in the pooled repository
+     *
+     * @param project    project of the source
+     * @param source     source whose branches are evaluated
+     * @param fileSystem pooled filesystem of the source
+     * @param remoteName name of the remote the branches were fetched from
+     * @param headName   head being evaluated by the caller, evaluated first
+     * @param prevHash   previous revision of that head
+     * @param currHash   current revision of that head
+     * @param evaluators new evaluator for each range
+     * @param index      index to record the commits read into, or null
+     */
+    void start(MultiBranchProject<?, ?> project, SCMSource source, GitSCMFileSystem fileSystem, String remoteName,
+               String headName, @CheckForNull String prevHash, String currHash,
+               Supplier<ChangelogEvaluator> evaluators, @CheckForNull CommitAuthorIndex index)
+            throws IOException, InterruptedException {
+        Map<String, String> builtRevisions = builtRevisions(project, source.getId());
+        builtRevisions.remove(headName);
+
+        List<Pending> queue = new ArrayList<>();
+        queue.add(new Pending(headName, prevHash, currHash));
+        queue.addAll(fileSystem.invoke(repository -> pendingRanges(repository, remoteName, builtRevisions)));
+
+        start(source.getId(), queue, () -> fileSystem.invoke(repository -> {
+            walk(repository, queue, evaluators, index);
+            return null;
+        }), EvaluationExecutor::prefetch);
+    }
+
+    /**
+     * Make the ranges available to {@link #await} and start walking them
+     *
+     * @param sourceId id of the source, for logging
+     * @param queue    ranges in the order they are walked
+     * @param walk     walks the ranges and completes each of them
+     * @param prefetch queues the task on a prefetch thread, false if the caller has to run it
+     */
+    void start(String sourceId, List<Pending> queue, Callable<?> walk, Predicate<Runnable> prefetch) {
+        Runnable batch = () -> {
+            long started = System.nanoTime();
+            try {
+                walk.call();
+                LOGGER.fine(String.format("Evaluated %d branches of %s ahead", queue.size(), sourceId));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                LOGGER.log(Level.FINE, "Unable to evaluate branches of " + sourceId + " ahead", e);
+            } finally {
+                // whatever was not walked is evaluated one head at a time
+                for (Pending pending : queue) {
+                    pending.complete(null);
+                }
+                EvaluationStatistics.get().recordPhase(EvaluationStatistics.Phase.BATCH, System.nanoTime() - started);
+            }
+        };
+        task = new FutureTask<>(batch, null);
+        for (Pending pending : queue) {
+            ranges.put(pending.headName, pending);
+        }
+        if (queue.size() == 1 || !prefetch.test(task)) {
+            task.run();
+        }
+    }
+
+    /**
+     * @return range of each branch from its built revision to its ref of the remote, for branches that changed
+     */
+    static List<Pending> pendingRanges(Repository repository, String remoteName, Map<String, String> builtRevisions)
+            throws IOException {
+        List<Pending> pending = new ArrayList<>();
+        for (Map.Entry<String, String> built : builtRevisions.entrySet()) {
+            if (pending.size() >= MAX_RANGES) {
+                break;
+            }
+            Ref ref = repository.exactRef("refs/remotes/" + remoteName + "/" + built.getKey());
+            if (ref == null || ref.getObjectId() == null) {
+                continue;
+            }
+            String currHash = ref.getObjectId().name();
+            // unchanged branches are not asked about
+            if (!currHash.equals(built.getValue())) {
+                pending.add(new Pending(built.getKey(), built.getValue(), currHash));
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Walk the ranges in order on the calling thread and as many prefetch threads as are free
+     * <p>
+     * Returns once no thread is reading the repository any more, even when interrupted, as the repository is only
+     * locked for the calling thread.
+     */
+    private static void walk(Repository repository, List<Pending> queue, Supplier<ChangelogEvaluator> evaluators,
+                             @CheckForNull CommitAuthorIndex index) throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            Map<ObjectId, String> authors = new HashMap<>();
+            try (RevWalk walk = new RevWalk(repository)) {
+                walk.setRetainBody(false);
+                for (int i = next.getAndIncrement(); i < queue.size(); i = next.getAndIncrement()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        // hand out no more ranges, to this thread or any other
+                        next.set(queue.size());
+                        break;
+                    }
+                    Pending pending = queue.get(i);
+                    try {
+                        ChangelogEvaluator evaluator = evaluators.get();
+                        Boolean verdict = RangeWalk.walk(walk, pending.currHash, pending.prevHash, evaluator, authors);
+                        if (verdict != null && index != null) {
+                            index.record(evaluator.getRecordedCommits());
+                        }
+                        pending.complete(verdict != null ? new Range(verdict, evaluator) : null);
+                    } catch (IOException | RuntimeException e) {
+                        LOGGER.log(Level.FINE, "Unable to evaluate " + pending.headName + " ahead", e);
+                        pending.complete(null);
+                    }
+                }
+            }
+        };
+
+        List<Helper> helpers = new ArrayList<>();
+        for (int i = 1; i < Math.min(EvaluationExecutor.prefetchThreads(), queue.size()); i++) {
+            Helper helper = new Helper(worker);
+            if (!EvaluationExecutor.prefetch(helper)) {
+                break;
+            }
+            helpers.add(helper);
+        }
+        worker.run();
+
+        boolean interrupted = Thread.interrupted();
+        for (Helper helper : helpers) {
+            while (true) {
+                if (interrupted) {
+                    next.set(queue.size());
+                    helpers.forEach(Helper::interrupt);
+                }
+                try {
+                    // a helper still queued behind other work is run here rather than waited for
+                    helper.finish();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            throw new InterruptedException("Evaluation of branches ahead interrupted");
+        }
+    }
+
+    /**
+     * @return revision last built by the job of each branch of the source, by head name
+     */
+    private static <P extends Job<P, R> & TopLevelItem, R extends Run<P, R>> Map<String, String> builtRevisions(
+            MultiBranchProject<P, R> project, String sourceId) {
+        // in name order, which is roughly the order branch indexing asks in
+        Map<String, String> revisions = new TreeMap<>();
+        BranchProjectFactory<P, R> factory = project.getProjectFactory();
+        for (P job : project.getItems()) {
+            if (!factory.isProject(job)) {
+                continue;
+            }
+            Branch branch = factory.getBranch(job);
+            String revision = IgnoreCommitterStrategy.hashOf(factory.getRevision(job));
+            if (sourceId.equals(branch.getSourceId()) && revision != null) {
+                revisions.put(branch.getHead().getName(), revision);
+            }
+        }
+        return revisions;
+    }
+
+    /**
+     * Share of the walk run on a prefetch thread, or by the walking thread if no prefetch thread got to it
+     */
+    static final class Helper implements Runnable {
+        private final Runnable worker;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private Thread thread;
+
+        Helper(Runnable worker) {
+            this.worker = worker;
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            synchronized (this) {
+                thread = Thread.currentThread();
+            }
+            try {
+                worker.run();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINE, "Unable to evaluate branches ahead", e);
+            } finally {
+                synchronized (this) {
+                    thread = null;
+                }
+                finished.countDown();
+            }
+        }
+
+        /**
+         * Run here if not started yet, otherwise wait for the thread running it
+         */
+        void finish() throws InterruptedException {
+            run();
+            finished.await();
+        }
+
+        synchronized void interrupt() {
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Range queued for evaluation
+     */
+    static final class Pending {
+        private final String headName;
+        private final String prevHash;
+        private final String currHash;
+        private final CompletableFuture<Range> result = new CompletableFuture<>();
+
+        Pending(String headName, @CheckForNull String prevHash, String currHash) {
+            this.headName = headName;
+            this.prevHash = prevHash;
+            this.currHash = currHash;
+        }
+
+        /**
+         * @param range verdict of the range, or null to evaluate it one head at a time, ignored once completed
+         */
+        void complete(@CheckForNull Range range) {
+            result.complete(range);
+        }
+    }
+
+    /**
+     * Verdict of one range
+     */
+    static final class Range {
+        private final boolean verdict;
+        private final String reason;
+        private final int commits;
+
+        Range(boolean verdict, ChangelogEvaluator evaluator) {
+            this.verdict = verdict;
+            this.reason = evaluator.getReason();
+            this.commits = evaluator.getCommits();
+        }
+
+        boolean getVerdict() {
+            return verdict;
+        }
+
+        String getReason() {
+            return reason;
+        }
+
+        int getCommits() {
+            return commits;
+        }
+    }
+}
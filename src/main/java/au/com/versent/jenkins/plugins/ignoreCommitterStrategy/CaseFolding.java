@@ -0,0 +1,103 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+/**
+ * Case-insensitive comparison of author emails without copying them
+ * <p>
+ * Emails are folded one character at a time: ASCII letters with arithmetic, anything else with
+ * {@link Character#toLowerCase(char)}. Unlike {@link String#toLowerCase()} the result does not depend on the default
+ * locale of the JVM, so a Turkish controller folds {@code I} to {@code i} like every other controller.
+ */
+final class CaseFolding {
+    private CaseFolding() {
+    }
+
+    static char fold(char c) {
+        if (c < 128) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(c);
+    }
+
+    /**
+     * @return first index of the text after leading whitespace and control characters, as {@link String#trim()}
+     */
+    static int trimStart(CharSequence text) {
+        int start = 0;
+        while (start < text.length() && text.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * @return index after the last character of the text before trailing whitespace and control characters
+     */
+    static int trimEnd(CharSequence text, int start) {
+        int end = text.length();
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * @return {@link String#hashCode()} of the folded region
+     */
+    static int hash(CharSequence text, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + fold(text.charAt(i));
+        }
+        return h;
+    }
+
+    /**
+     * @param folded already folded text
+     * @return true if the region folds to the same text
+     */
+    static boolean regionMatches(String folded, CharSequence text, int start, int end) {
+        if (folded.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (folded.charAt(i - start) != fold(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return folded copy of the region
+     */
+    static String fold(CharSequence text, int start, int end) {
+        char[] folded = new char[end - start];
+        for (int i = start; i < end; i++) {
+            folded[i - start] = fold(text.charAt(i));
+        }
+        return new String(folded);
+    }
+}
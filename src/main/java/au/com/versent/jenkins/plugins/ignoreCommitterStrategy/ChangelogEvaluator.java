@@ -0,0 +1,527 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Changelog sink that applies the ignore rule to each commit as soon as it has been written
+ * <p>
+ * Commits are split the same way as {@link hudson.plugins.git.GitChangeLogParser} does, and the author of each is
+ * read the way {@link hudson.plugins.git.GitChangeSet} reads it. Only the commit, author, committer and parent header
+ * lines are looked at, straight from the bytes, messages and file lists are skipped without being decoded.
+ * Once the verdict is known further writes fail, which cancels the changelog producer. Writes from an interrupted
+ * thread fail the same way, so an aborted branch indexing stops reading the changelog.
+ */
+final class ChangelogEvaluator extends OutputStream {
+    private static final Logger LOGGER = Logger.getLogger(ChangelogEvaluator.class.getName());
+    private static final RateLimitedLogger RATE_LIMITED_LOGGER = new RateLimitedLogger(LOGGER);
+    // same limit as GitChangeLogParser, lines past it are dropped from the commit
+    private static final int MAX_COMMIT_LINES = 1000;
+    private static final byte[] COMMIT = ascii("commit ");
+    private static final byte[] AUTHOR = ascii("author ");
+    private static final byte[] COMMITTER = ascii("committer ");
+    private static final byte[] PARENT = ascii("parent ");
+
+    private final AuthorMatcher ignoredAuthorsMatcher;
+    private final boolean allowBuildIfNotExcludedAuthor;
+
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private boolean afterCarriageReturn;
+
+    // the commit being read
+    private boolean inCommit;
+    private int commitLineCount;
+    private String commitId;
+    private byte[] authorEmail = new byte[64];
+    private int authorEmailLength;
+    private final AsciiSequence authorEmailView = new AsciiSequence();
+    private List<CommitId> parents;
+    private boolean parentsInvalid;
+    private RuntimeException parseFailure;
+    // bounds of the email and date of the last identity line matched
+    private int emailStart;
+    private int emailEnd;
+    private int dateStart;
+    private int dateEnd;
+
+    private Boolean verdict;
+    private String reason;
+    private final List<CommitAuthorIndex.Commit> recordedCommits;
+    private int maxCommits;
+    private boolean buildWhenCommitLimitReached;
+    private int maxChangelog;
+    private int commits;
+    private long parseNanos;
+    private long matchNanos;
+    private boolean finished;
+    private boolean reportStatistics = true;
+
+    ChangelogEvaluator(AuthorMatcher ignoredAuthorsMatcher, boolean allowBuildIfNotExcludedAuthor) {
+        this(ignoredAuthorsMatcher, allowBuildIfNotExcludedAuthor, false);
+    }
+
+    /**
+     * @param recordCommits keep the id, parents and author of every evaluated commit for the {@link CommitAuthorIndex}
+     */
+    ChangelogEvaluator(AuthorMatcher ignoredAuthorsMatcher, boolean allowBuildIfNotExcludedAuthor, boolean recordCommits) {
+        this.ignoredAuthorsMatcher = ignoredAuthorsMatcher;
+        this.allowBuildIfNotExcludedAuthor = allowBuildIfNotExcludedAuthor;
+        this.recordedCommits = recordCommits ? new ArrayList<>() : null;
+    }
+
+    /**
+     * Stop inspecting the changeset after a number of commits
+     *
+     * @param maxCommits                  most commits to inspect, 0 for no limit
+     * @param buildWhenCommitLimitReached verdict once the changeset turns out to have more commits
+     * @return this evaluator
+     */
+    ChangelogEvaluator limitCommits(int maxCommits, boolean buildWhenCommitLimitReached) {
+        this.maxCommits = maxCommits;
+        this.buildWhenCommitLimitReached = buildWhenCommitLimitReached;
+        return this;
+    }
+
+    /**
+     * Treat the changeset as ending after a number of commits, the way the changelog of the git plugin is cut off
+     * at {@code GitSCM.MAX_CHANGELOG}, so a walk of the range reaches the same verdict as the changelog
+     *
+     * @param maxChangelog most commits the changeset is made of, 0 for no limit
+     * @return this evaluator
+     */
+    ChangelogEvaluator truncateAfter(int maxChangelog) {
+        this.maxChangelog = maxChangelog;
+        return this;
+    }
+
+    /**
+     * @return true if the changeset has been read up to its truncation, later commits are not inspected
+     */
+    boolean isTruncated() {
+        return maxChangelog > 0 && commits >= maxChangelog;
+    }
+
+    /**
+     * Keep timings and fallbacks out of {@link EvaluationStatistics}, for evaluations that run on an agent
+     *
+     * @return this evaluator
+     */
+    ChangelogEvaluator withoutStatistics() {
+        this.reportStatistics = false;
+        return this;
+    }
+
+    boolean isRecordingCommits() {
+        return recordedCommits != null;
+    }
+
+    /**
+     * @return commits evaluated so far, empty unless commits are recorded
+     */
+    List<CommitAuthorIndex.Commit> getRecordedCommits() {
+        return recordedCommits != null ? recordedCommits : Collections.<CommitAuthorIndex.Commit>emptyList();
+    }
+
+    /**
+     * @return true if a decisive commit has been seen and the rest of the changelog is not needed
+     */
+    boolean isDecided() {
+        return verdict != null;
+    }
+
+    /**
+     * @return number of commits inspected so far
+     */
+    int getCommits() {
+        return commits;
+    }
+
+    /**
+     * @return why the verdict was reached, or null if there is no verdict yet
+     */
+    @CheckForNull
+    String getReason() {
+        return reason;
+    }
+
+    /**
+     * Evaluate whatever is left of the changelog and return the verdict
+     *
+     * @return true if build is required
+     */
+    boolean finish() {
+        if (verdict == null && lineLength > 0) {
+            endLine();
+        }
+        if (verdict == null && inCommit) {
+            inCommit = false;
+            endCommit();
+        }
+        if (verdict == null) {
+            // here if commits are made by ignored authors and allowBuildIfNotExcludedAuthor is true, in this case return false
+            // or if all commits are made by non-ignored authors and allowBuildIfNotExcludedAuthor is false, in this case return true
+            reason = allowBuildIfNotExcludedAuthor ? "all authors are excluded" : "no author is excluded";
+            verdict = !allowBuildIfNotExcludedAuthor;
+        }
+        if (!finished) {
+            finished = true;
+            if (reportStatistics) {
+                EvaluationStatistics statistics = EvaluationStatistics.get();
+                statistics.recordPhase(EvaluationStatistics.Phase.PARSE, parseNanos);
+                statistics.recordPhase(EvaluationStatistics.Phase.MATCH, matchNanos);
+            }
+        }
+        return verdict;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureWritable();
+        consume((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureWritable();
+        long started = System.nanoTime();
+        long matchedBefore = matchNanos;
+        for (int i = off, end = off + len; i < end && verdict == null; i++) {
+            consume(b[i]);
+        }
+        parseNanos += System.nanoTime() - started - (matchNanos - matchedBefore);
+    }
+
+    private void ensureWritable() throws IOException {
+        if (verdict != null) {
+            throw new VerdictReachedException();
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Changelog evaluation interrupted");
+        }
+    }
+
+    // line terminators are the ones BufferedReader.readLine understands: \n, \r and \r\n
+    private void consume(byte b) {
+        if (afterCarriageReturn) {
+            afterCarriageReturn = false;
+            if (b == '\n') {
+                return;
+            }
+        }
+        if (b == '\n') {
+            endLine();
+        } else if (b == '\r') {
+            endLine();
+            afterCarriageReturn = true;
+        } else {
+            if (lineLength == line.length) {
+                line = Arrays.copyOf(line, line.length * 2);
+            }
+            line[lineLength++] = b;
+        }
+    }
+
+    private void endLine() {
+        int length = lineLength;
+        lineLength = 0;
+
+        if (startsWith(COMMIT, length)) {
+            if (inCommit) {
+                endCommit();
+                if (verdict != null) {
+                    return;
+                }
+            }
+            startCommit();
+        }
+        if (!inCommit || commitLineCount >= MAX_COMMIT_LINES) {
+            return;
+        }
+        commitLineCount++;
+
+        if (length == 0) {
+            return;
+        }
+        if (startsWith(COMMIT, length)) {
+            readCommitId(length);
+        } else if (startsWith(PARENT, length)) {
+            if (parents != null) {
+                readParents(length);
+            }
+        } else if (startsWith(COMMITTER, length)) {
+            readIdentity(COMMITTER.length, length);
+        } else if (startsWith(AUTHOR, length)) {
+            // the last author line of a commit wins, as in GitChangeSet
+            if (readIdentity(AUTHOR.length, length)) {
+                int emailLength = emailEnd - emailStart;
+                if (emailLength > authorEmail.length) {
+                    authorEmail = new byte[Math.max(emailLength, authorEmail.length * 2)];
+                }
+                System.arraycopy(line, emailStart, authorEmail, 0, emailLength);
+                authorEmailLength = emailLength;
+            }
+        }
+    }
+
+    private void startCommit() {
+        inCommit = true;
+        commitLineCount = 0;
+        commitId = null;
+        authorEmailLength = -1;
+        parents = recordedCommits != null ? new ArrayList<>(1) : null;
+        parentsInvalid = false;
+        parseFailure = null;
+    }
+
+    private void endCommit() {
+        if (parseFailure != null) {
+            // GitChangeSet fails on the whole commit, so does the evaluation
+            throw parseFailure;
+        }
+        CharSequence email = authorEmailLength >= 0 ? authorEmailView.view(authorEmail, 0, authorEmailLength) : null;
+        accept(commitId, parents != null && !parentsInvalid ? parents.toArray(new CommitId[0]) : null, email);
+    }
+
+    // the id is the second word of the line, a line without one fails the commit
+    private void readCommitId(int length) {
+        int start = COMMIT.length;
+        int end = indexOf((byte) ' ', start, length);
+        if (end < 0) {
+            end = length;
+        }
+        boolean blank = true;
+        for (int i = start; i < length && blank; i++) {
+            blank = line[i] == ' ';
+        }
+        if (blank) {
+            parseFailure = new IllegalArgumentException("Commit has no ID");
+            return;
+        }
+        commitId = new String(line, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    // parents are listed on one line by command line git and on one line each by JGit, trailing spaces are ignored
+    private void readParents(int length) {
+        int start = PARENT.length;
+        if (start == length) {
+            parentsInvalid = true;
+            return;
+        }
+        int last = length;
+        while (last > start && line[last - 1] == ' ') {
+            last--;
+        }
+        while (start < last) {
+            int end = indexOf((byte) ' ', start, last);
+            if (end < 0) {
+                end = last;
+            }
+            CommitId parent = CommitId.parse(line, start, end);
+            if (parent == null) {
+                parentsInvalid = true;
+                return;
+            }
+            parents.add(parent);
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Match {@code ([^<]*)<(.*)> (.*)} against the rest of an author or committer line, as GitChangeSet does
+     *
+     * @return true if the line matches, the email and date bounds are then set
+     */
+    private boolean readIdentity(int start, int length) {
+        int open = indexOf((byte) '<', start, length);
+        if (open < 0) {
+            return false;
+        }
+        // '.' does not match the line terminators U+0085, U+2028 and U+2029 either
+        int close = -1;
+        for (int i = open + 1; i < length; i++) {
+            if (line[i] == '>' && i + 1 < length && line[i + 1] == ' ') {
+                close = i;
+            } else if (terminatorAt(i, length)) {
+                return false;
+            }
+        }
+        if (close < 0) {
+            return false;
+        }
+        emailStart = open + 1;
+        emailEnd = close;
+        dateStart = close + 2;
+        dateEnd = length;
+        checkDate();
+        return true;
+    }
+
+    // GitChangeSet converts a date of digits only to a long and fails the commit if it does not fit
+    private void checkDate() {
+        int space = indexOf((byte) ' ', dateStart, dateEnd);
+        int end = space > dateStart ? space : dateEnd;
+        boolean ascii = true;
+        boolean digits = true;
+        for (int i = dateStart; i < end; i++) {
+            if (line[i] < 0) {
+                ascii = false;
+            } else if (line[i] < '0' || line[i] > '9') {
+                digits = false;
+            }
+        }
+        if (ascii && (!digits || end - dateStart <= 18)) {
+            return;
+        }
+        String date = new String(line, dateStart, end - dateStart, StandardCharsets.UTF_8);
+        for (int i = 0; i < date.length(); i++) {
+            if (!Character.isDigit(date.charAt(i))) {
+                return;
+            }
+        }
+        if (!date.isEmpty()) {
+            try {
+                Long.parseLong(date);
+            } catch (NumberFormatException e) {
+                parseFailure = e;
+            }
+        }
+    }
+
+    // U+0085, U+2028 and U+2029 in UTF-8
+    private boolean terminatorAt(int i, int end) {
+        if (line[i] == (byte) 0xC2) {
+            return i + 1 < end && line[i + 1] == (byte) 0x85;
+        }
+        return line[i] == (byte) 0xE2 && i + 2 < end && line[i + 1] == (byte) 0x80
+                && (line[i + 2] == (byte) 0xA8 || line[i + 2] == (byte) 0xA9);
+    }
+
+    private boolean startsWith(byte[] prefix, int length) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (line[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(byte b, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (line[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Apply the ignore rule to one commit
+     *
+     * @param commitId       commit id
+     * @param parents        parents of the commit, only needed when commits are recorded
+     * @param rawAuthorEmail author email as recorded in the commit, null if it could not be parsed, only read
+     *                       during the call
+     */
+    void accept(String commitId, @CheckForNull CommitId[] parents, @CheckForNull CharSequence rawAuthorEmail) {
+        if (maxCommits > 0 && commits >= maxCommits) {
+            if (reportStatistics) {
+                EvaluationStatistics.get().recordCommitLimitReached();
+            }
+            reason = "more than " + maxCommits + " commits";
+            verdict = buildWhenCommitLimitReached;
+            return;
+        }
+        if (isTruncated()) {
+            return;
+        }
+        commits++;
+
+        if (rawAuthorEmail == null) {
+            RATE_LIMITED_LOGGER.log(Level.WARNING, "Unable to parse author of a commit, build is required");
+            reason = "unparseable author in " + commitId;
+            verdict = true;
+            return;
+        }
+
+        // the email is only normalized into a string when it is kept, matching compares it in place
+        if (recordedCommits != null && parents != null) {
+            CommitId id = CommitId.parse(commitId);
+            if (id != null) {
+                recordedCommits.add(new CommitAuthorIndex.Commit(id, parents, AuthorMatcher.normalize(rawAuthorEmail)));
+            }
+        }
+
+        long started = System.nanoTime();
+        boolean isIgnoredAuthor = ignoredAuthorsMatcher.matches(rawAuthorEmail);
+        matchNanos += System.nanoTime() - started;
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine(String.format("Commit %s by %s, author is %s", commitId, AuthorMatcher.normalize(rawAuthorEmail),
+                    isIgnoredAuthor ? "ignored" : "not ignored"));
+        }
+
+        if (isIgnoredAuthor) {
+            if (!allowBuildIfNotExcludedAuthor) {
+                // if author is ignored and changesets with at least one non-excluded author are not allowed
+                reason = "ignored author " + AuthorMatcher.normalize(rawAuthorEmail) + " in " + commitId;
+                verdict = false;
+            }
+
+        } else {
+            if (allowBuildIfNotExcludedAuthor) {
+                // if author is not ignored and changesets with at least one non-excluded author are allowed
+                reason = "non ignored author " + AuthorMatcher.normalize(rawAuthorEmail) + " in " + commitId;
+                verdict = true;
+            }
+        }
+    }
+
+    /**
+     * Thrown to the changelog producer once the verdict is known
+     */
+    static final class VerdictReachedException extends IOException {
+        VerdictReachedException() {
+            super("Changelog evaluation is complete");
+        }
+    }
+}
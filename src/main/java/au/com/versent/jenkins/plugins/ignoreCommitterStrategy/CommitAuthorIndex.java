@@ -0,0 +1,336 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Append-only index of commit id to parents and normalized author email, kept under JENKINS_HOME
+ * <p>
+ * Commits never change, so once a commit has been read from a changelog it can be judged again without git.
+ * A range can be resolved from the index alone when the first parent chain from the current revision reaches
+ * the previous revision through indexed, non-merge commits. Anything else falls back to git.
+ * <p>
+ * The index keeps the most recently added entries up to its size cap. The file is rewritten with just those
+ * entries once it holds twice as many records as the cap.
+ */
+final class CommitAuthorIndex {
+    private static final Logger LOGGER = Logger.getLogger(CommitAuthorIndex.class.getName());
+    private static final int MAGIC = 0x49435349;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+
+    private static final int DEFAULT_MAX_SIZE = SystemProperties.getInteger(
+            IgnoreCommitterStrategy.class.getName() + ".commitIndexSize", 100000);
+    // longest first parent chain resolved from the index before falling back to git
+    private static final int MAX_CHAIN_LENGTH = 1000;
+    // emails are stored with a two byte length, anything close to that is not a real address
+    private static final int MAX_EMAIL_LENGTH = 1024;
+
+    private static volatile CommitAuthorIndex instance;
+
+    private final File file;
+    private final int maxSize;
+    private final Map<CommitId, Commit> entries;
+    private final Map<String, String> emails = new HashMap<>();
+    private boolean loaded;
+    private boolean writable = true;
+    // an interrupted write may have left part of a record at the end of the file
+    private boolean rewrite;
+    private int records;
+
+    CommitAuthorIndex(File file, int maxSize) {
+        this.file = file;
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<CommitId, Commit>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CommitId, Commit> eldest) {
+                return size() > CommitAuthorIndex.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return the controller-wide index, or null if Jenkins is not running or the index is disabled
+     */
+    @CheckForNull
+    static CommitAuthorIndex get() {
+        CommitAuthorIndex index = instance;
+        if (index == null && DEFAULT_MAX_SIZE > 0) {
+            Jenkins jenkins = Jenkins.getInstanceOrNull();
+            if (jenkins == null) {
+                return null;
+            }
+            synchronized (CommitAuthorIndex.class) {
+                if (instance == null) {
+                    instance = new CommitAuthorIndex(
+                            new File(new File(jenkins.getRootDir(), "ignore-committer-strategy"), "commit-authors.idx"),
+                            DEFAULT_MAX_SIZE);
+                }
+                index = instance;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Evaluate a range from indexed commits only
+     *
+     * @param currHash  current revision
+     * @param prevHash  previous revision
+     * @param evaluator evaluator to feed the commits of the range to
+     * @return verdict, or null if the range cannot be resolved from the index
+     */
+    @CheckForNull
+    Boolean resolve(@CheckForNull String currHash, @CheckForNull String prevHash, ChangelogEvaluator evaluator) {
+        CommitId curr = CommitId.parse(currHash);
+        CommitId prev = CommitId.parse(prevHash);
+        if (curr == null || prev == null) {
+            return null;
+        }
+
+        // the whole chain must be known before any commit is judged, a commit only belongs to the range
+        // if the walk reaches the previous revision
+        List<Commit> chain = new ArrayList<>();
+        synchronized (this) {
+            load();
+            CommitId id = curr;
+            while (!id.equals(prev)) {
+                Commit commit = entries.get(id);
+                if (commit == null || commit.parents.length != 1 || chain.size() >= MAX_CHAIN_LENGTH) {
+                    return null;
+                }
+                chain.add(commit);
+                id = commit.parents[0];
+            }
+        }
+
+        for (Commit commit : chain) {
+            evaluator.accept(commit.id.toString(), null, commit.authorEmail);
+            if (evaluator.isDecided()) {
+                break;
+            }
+        }
+        return evaluator.finish();
+    }
+
+    /**
+     * Add commits read from a changelog
+     *
+     * @param commits commits, already indexed ones are skipped
+     */
+    synchronized void record(List<Commit> commits) {
+        if (commits.isEmpty()) {
+            return;
+        }
+        load();
+
+        List<Commit> added = new ArrayList<>();
+        for (Commit commit : commits) {
+            if (commit.authorEmail.length() > MAX_EMAIL_LENGTH) {
+                continue;
+            }
+            if (!entries.containsKey(commit.id)) {
+                Commit interned = new Commit(commit.id, commit.parents, intern(commit.authorEmail));
+                entries.put(commit.id, interned);
+                added.add(interned);
+            }
+        }
+        if (added.isEmpty() || !writable) {
+            return;
+        }
+
+        if (Thread.currentThread().isInterrupted()) {
+            // file channels close on interrupted threads, keep the commits in memory and write them out next time
+            rewrite = true;
+            return;
+        }
+        try {
+            if (rewrite || records > 0 && records + added.size() > 2 * maxSize) {
+                compact();
+            } else {
+                append(added);
+            }
+        } catch (ClosedByInterruptException e) {
+            rewrite = true;
+        } catch (IOException e) {
+            // keep serving from memory rather than failing every evaluation
+            writable = false;
+            LOGGER.log(Level.WARNING, "Unable to write commit author index " + file + ", index will not be persisted", e);
+        }
+    }
+
+    synchronized int size() {
+        load();
+        return entries.size();
+    }
+
+    private String intern(String email) {
+        String interned = emails.putIfAbsent(email, email);
+        return interned != null ? interned : email;
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!file.isFile()) {
+            return;
+        }
+
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                LOGGER.warning("Discarding commit author index " + file + " written by an incompatible version");
+                Files.delete(file.toPath());
+                return;
+            }
+            validLength = HEADER_BYTES;
+            while (true) {
+                Commit commit = read(in);
+                entries.put(commit.id, commit);
+                records++;
+                validLength += commit.recordLength();
+            }
+        } catch (EOFException e) {
+            // end of the file, or the tail of a record interrupted by a restart
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to read commit author index " + file, e);
+        }
+
+        if (validLength < file.length()) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+            } catch (IOException e) {
+                writable = false;
+                LOGGER.log(Level.WARNING, "Unable to truncate commit author index " + file, e);
+            }
+        }
+    }
+
+    private Commit read(DataInputStream in) throws IOException {
+        CommitId id = CommitId.read(in);
+        CommitId[] parents = new CommitId[in.readUnsignedByte()];
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = CommitId.read(in);
+        }
+        byte[] email = new byte[in.readUnsignedShort()];
+        in.readFully(email);
+        return new Commit(id, parents, intern(new String(email, StandardCharsets.UTF_8)));
+    }
+
+    private void append(List<Commit> commits) throws IOException {
+        boolean created = !file.isFile();
+        if (created) {
+            Files.createDirectories(file.getParentFile().toPath());
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+                file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+            if (created) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+            }
+            for (Commit commit : commits) {
+                commit.write(out);
+            }
+        }
+        records += commits.size();
+    }
+
+    private void compact() throws IOException {
+        File compacted = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(compacted.toPath())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (Commit commit : entries.values()) {
+                commit.write(out);
+            }
+        }
+        Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        records = entries.size();
+        rewrite = false;
+
+        emails.clear();
+        for (Commit commit : entries.values()) {
+            intern(commit.authorEmail);
+        }
+        LOGGER.fine(String.format("Compacted commit author index %s to %d entries", file, records));
+    }
+
+    /**
+     * Commit as read from a changelog
+     */
+    static final class Commit {
+        private final CommitId id;
+        private final CommitId[] parents;
+        private final String authorEmail;
+
+        Commit(CommitId id, CommitId[] parents, String authorEmail) {
+            // the record stores the parent count in one byte, octopus merges beyond that are never resolved anyway
+            this.id = id;
+            this.parents = parents.length > 255 ? new CommitId[0] : parents;
+            this.authorEmail = authorEmail;
+        }
+
+        private long recordLength() {
+            return CommitId.BYTES + 1 + (long) CommitId.BYTES * parents.length + 2
+                    + authorEmail.getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            byte[] email = authorEmail.getBytes(StandardCharsets.UTF_8);
+            id.write(out);
+            out.writeByte(parents.length);
+            for (CommitId parent : parents) {
+                parent.write(out);
+            }
+            out.writeShort(email.length);
+            out.write(email);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 160 bit git commit id held in three primitives instead of a 40 character string
+ */
+final class CommitId {
+    static final int BYTES = 20;
+
+    private final long high;
+    private final long middle;
+    private final int low;
+
+    private CommitId(long high, long middle, int low) {
+        this.high = high;
+        this.middle = middle;
+        this.low = low;
+    }
+
+    /**
+     * Parse full hexadecimal commit id
+     *
+     * @param hex commit id, may be null
+     * @return commit id or null if hex is not a full commit id
+     */
+    @CheckForNull
+    static CommitId parse(@CheckForNull String hex) {
+        if (hex == null || hex.length() != BYTES * 2) {
+            return null;
+        }
+        long high = 0;
+        long middle = 0;
+        int low = 0;
+        for (int i = 0; i < hex.length(); i++) {
+            int digit = Character.digit(hex.charAt(i), 16);
+            if (digit < 0) {
+                return null;
+            }
+            if (i < 16) {
+                high = high << 4 | digit;
+            } else if (i < 32) {
+                middle = middle << 4 | digit;
+            } else {
+                low = low << 4 | digit;
+            }
+        }
+        return new CommitId(high, middle, low);
+    }
+
+    /**
+     * Parse full hexadecimal commit id from ASCII bytes
+     *
+     * @param hex   bytes holding the commit id
+     * @param start index of the first digit
+     * @param end   index after the last digit
+     * @return commit id or null if the range is not a full commit id
+     */
+    @CheckForNull
+    static CommitId parse(byte[] hex, int start, int end) {
+        if (end - start != BYTES * 2) {
+            return null;
+        }
+        long high = 0;
+        long middle = 0;
+        int low = 0;
+        for (int i = 0; i < BYTES * 2; i++) {
+            int digit = Character.digit(hex[start + i], 16);
+            if (digit < 0) {
+                return null;
+            }
+            if (i < 16) {
+                high = high << 4 | digit;
+            } else if (i < 32) {
+                middle = middle << 4 | digit;
+            } else {
+                low = low << 4 | digit;
+            }
+        }
+        return new CommitId(high, middle, low);
+    }
+
+    static CommitId read(DataInput in) throws IOException {
+        return new CommitId(in.readLong(), in.readLong(), in.readInt());
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeLong(high);
+        out.writeLong(middle);
+        out.writeInt(low);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CommitId)) {
+            return false;
+        }
+        CommitId that = (CommitId) o;
+        return high == that.high && middle == that.middle && low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        // commit ids are uniformly distributed, the leading bits are as good a hash as any
+        return (int) (high >>> 32);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x%08x", high, middle, low);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import jenkins.util.SystemProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Controller-wide LRU cache of verdicts with a time to live
+ * <p>
+ * Keys carry the strategy configuration, so a changed ignore list or allow flag never sees verdicts made
+ * under the previous configuration, those age out of the cache instead.
+ */
+final class DecisionCache {
+    private static final int DEFAULT_MAX_SIZE = SystemProperties.getInteger(
+            IgnoreCommitterStrategy.class.getName() + ".decisionCacheSize", 10000);
+    private static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(SystemProperties.getLong(
+            IgnoreCommitterStrategy.class.getName() + ".decisionCacheTtlMinutes", 60L));
+
+    private static final DecisionCache INSTANCE = new DecisionCache(DEFAULT_MAX_SIZE, DEFAULT_TTL_MILLIS);
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Map<EvaluationKey, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    DecisionCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<EvaluationKey, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<EvaluationKey, Entry> eldest) {
+                return size() > DecisionCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return the controller-wide cache
+     */
+    static DecisionCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Look up a previous verdict
+     *
+     * @param key evaluation key
+     * @return cached verdict or null if not cached or expired
+     */
+    @CheckForNull
+    Boolean lookup(EvaluationKey key) {
+        if (maxSize <= 0) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && now - entry.created <= ttlMillis) {
+                hits.incrementAndGet();
+                return entry.verdict;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Remember a verdict
+     *
+     * @param key     evaluation key
+     * @param verdict true if build is required
+     */
+    void store(EvaluationKey key, boolean verdict) {
+        if (maxSize <= 0) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, new Entry(verdict, System.currentTimeMillis()));
+        }
+    }
+
+    void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        hits.set(0);
+        misses.set(0);
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    private static final class Entry {
+        private final boolean verdict;
+        private final long created;
+
+        private Entry(boolean verdict, long created) {
+            this.verdict = verdict;
+            this.created = created;
+        }
+    }
+}
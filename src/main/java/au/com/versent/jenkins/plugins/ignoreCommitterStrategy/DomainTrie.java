@@ -0,0 +1,167 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+/**
+ * Ignored author domains stored as a trie of their labels, rightmost label first
+ * <p>
+ * An email matches when its domain is one of the domains or a subdomain of one, so {@code ci.corp.example} covers
+ * {@code build@ci.corp.example} and {@code build@eu.ci.corp.example}. A lookup walks the labels of the email from the
+ * right once and compares them in place, so it costs the length of the email however many domains there are.
+ */
+final class DomainTrie {
+    private final Node root = new Node();
+    private int size;
+
+    /**
+     * @param domain normalized domain without the leading {@code @}
+     * @return false if the domain is empty or has an empty label
+     */
+    boolean add(String domain) {
+        Node node = root;
+        int labelEnd = domain.length();
+        for (int i = labelEnd - 1; i >= -1; i--) {
+            if (i == -1 || domain.charAt(i) == '.') {
+                if (i + 1 == labelEnd) {
+                    return false;
+                }
+                node = node.childOrCreate(domain.substring(i + 1, labelEnd));
+                labelEnd = i;
+            }
+        }
+        if (!node.terminal) {
+            node.terminal = true;
+            size++;
+        }
+        return true;
+    }
+
+    /**
+     * @param email normalized author email
+     * @return true if the domain of the email is one of the domains or a subdomain of one
+     */
+    boolean matches(String email) {
+        return matches(email, 0, email.length());
+    }
+
+    /**
+     * @param text  text containing the author email, compared case-insensitively
+     * @param start first index of the email
+     * @param end   index after the last character of the email
+     * @return true if the domain of the email is one of the domains or a subdomain of one
+     */
+    boolean matches(CharSequence text, int start, int end) {
+        int at = end - 1;
+        while (at >= start && text.charAt(at) != '@') {
+            at--;
+        }
+        if (at < start) {
+            return false;
+        }
+        Node node = root;
+        int labelEnd = end;
+        for (int i = labelEnd - 1; i >= at; i--) {
+            if (i == at || text.charAt(i) == '.') {
+                node = node.child(text, i + 1, labelEnd);
+                if (node == null) {
+                    return false;
+                }
+                if (node.terminal) {
+                    return true;
+                }
+                labelEnd = i;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return number of domains
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Labels below one domain, in an open addressing table so that a label can be looked up without copying it
+     */
+    private static final class Node {
+        private String[] labels = new String[2];
+        private Node[] children = new Node[2];
+        private int count;
+        private boolean terminal;
+
+        Node child(CharSequence text, int start, int end) {
+            int mask = labels.length - 1;
+            for (int slot = hash(text, start, end) & mask; labels[slot] != null; slot = (slot + 1) & mask) {
+                if (CaseFolding.regionMatches(labels[slot], text, start, end)) {
+                    return children[slot];
+                }
+            }
+            return null;
+        }
+
+        Node childOrCreate(String label) {
+            Node child = child(label, 0, label.length());
+            if (child != null) {
+                return child;
+            }
+            if ((count + 1) * 4 > labels.length * 3) {
+                grow();
+            }
+            child = new Node();
+            insert(label, child);
+            count++;
+            return child;
+        }
+
+        private void grow() {
+            String[] oldLabels = labels;
+            Node[] oldChildren = children;
+            labels = new String[oldLabels.length * 2];
+            children = new Node[oldLabels.length * 2];
+            for (int i = 0; i < oldLabels.length; i++) {
+                if (oldLabels[i] != null) {
+                    insert(oldLabels[i], oldChildren[i]);
+                }
+            }
+        }
+
+        private void insert(String label, Node child) {
+            int mask = labels.length - 1;
+            int slot = hash(label, 0, label.length()) & mask;
+            while (labels[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            labels[slot] = label;
+            children[slot] = child;
+        }
+
+        // String.hashCode of the folded region, spread so that similar labels do not cluster
+        private static int hash(CharSequence text, int start, int end) {
+            int h = CaseFolding.hash(text, start, end);
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import hudson.security.ACL;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.security.ImpersonatingExecutorService;
+import jenkins.util.SystemProperties;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Runs evaluations that have a time budget off the indexing thread, so the indexing thread can stop waiting
+ * <p>
+ * The pool is bounded, once every thread is busy evaluations queue and their callers still wait no longer than the
+ * time budget. Once the queue is full as well, evaluations are rejected and their callers apply the timeout verdict
+ * straight away, an evaluation with a time budget never runs on the indexing thread.
+ * <p>
+ * A second, smaller pool evaluates heads ahead of branch indexing asking about them, see {@link BatchEvaluation}.
+ * Its work queues once every prefetch thread is busy.
+ */
+final class EvaluationExecutor {
+    private static final int MAX_THREADS = SystemProperties.getInteger(
+            IgnoreCommitterStrategy.class.getName() + ".evaluationThreads", 16);
+
+    private static final int QUEUE_SIZE = SystemProperties.getInteger(
+            IgnoreCommitterStrategy.class.getName() + ".evaluationQueueSize", 256);
+
+    private static final ExecutorService EXECUTOR = new ImpersonatingExecutorService(
+            newEvaluationExecutor(MAX_THREADS, QUEUE_SIZE), ACL.SYSTEM);
+
+    private static final int PREFETCH_THREADS = Math.max(0, SystemProperties.getInteger(
+            IgnoreCommitterStrategy.class.getName() + ".prefetchThreads",
+            Math.min(4, Runtime.getRuntime().availableProcessors())));
+
+    private static final ExecutorService PREFETCH_EXECUTOR = PREFETCH_THREADS == 0 ? null : newPrefetchExecutor();
+
+    private EvaluationExecutor() {
+    }
+
+    /**
+     * @param threads   most evaluations running at once
+     * @param queueSize most evaluations waiting for a thread, further ones are rejected
+     */
+    static ThreadPoolExecutor newEvaluationExecutor(int threads, int queueSize) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                queueSize > 0 ? new LinkedBlockingQueue<>(queueSize) : new SynchronousQueue<>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), "IgnoreCommitterStrategy.evaluation"),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static ExecutorService newPrefetchExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(PREFETCH_THREADS, PREFETCH_THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), "IgnoreCommitterStrategy.prefetch"));
+        executor.allowCoreThreadTimeOut(true);
+        return new ImpersonatingExecutorService(executor, ACL.SYSTEM);
+    }
+
+    /**
+     * @return number of prefetch threads, 0 if evaluating ahead is disabled
+     */
+    static int prefetchThreads() {
+        return PREFETCH_THREADS;
+    }
+
+    /**
+     * Queue work that evaluates heads ahead
+     *
+     * @return false if evaluating ahead is disabled and the caller has to run the task itself
+     */
+    static boolean prefetch(Runnable task) {
+        if (PREFETCH_EXECUTOR == null) {
+            return false;
+        }
+        try {
+            PREFETCH_EXECUTOR.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @throws RejectedExecutionException if every evaluation thread is busy and the queue is full
+     */
+    static Evaluation submit(Callable<Boolean> task) {
+        return submit(EXECUTOR, task);
+    }
+
+    static Evaluation submit(ExecutorService executor, Callable<Boolean> task) {
+        Evaluation evaluation = new Evaluation(task);
+        executor.execute(evaluation);
+        return evaluation;
+    }
+
+    /**
+     * Evaluation that can be handed a callback for when it finishes after its caller stopped waiting
+     */
+    static final class Evaluation extends FutureTask<Boolean> {
+        private final AtomicReference<Consumer<Boolean>> lateCompletion = new AtomicReference<>();
+
+        private Evaluation(Callable<Boolean> task) {
+            super(task);
+        }
+
+        /**
+         * @param callback receives the verdict, or null if the evaluation failed, unless the evaluation is cancelled
+         */
+        void whenDone(Consumer<Boolean> callback) {
+            lateCompletion.set(callback);
+            if (isDone()) {
+                complete();
+            }
+        }
+
+        @Override
+        protected void done() {
+            complete();
+        }
+
+        private void complete() {
+            Consumer<Boolean> callback = lateCompletion.getAndSet(null);
+            if (callback == null || isCancelled()) {
+                return;
+            }
+            Boolean verdict;
+            try {
+                verdict = get();
+            } catch (InterruptedException | ExecutionException e) {
+                verdict = null;
+            }
+            callback.accept(verdict);
+        }
+    }
+}
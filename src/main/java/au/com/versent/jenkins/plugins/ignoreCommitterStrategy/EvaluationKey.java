@@ -0,0 +1,91 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+
+import java.util.Objects;
+
+/**
+ * Identifies one evaluation: the revision range of a head and the strategy configuration it was judged with
+ */
+final class EvaluationKey {
+    private final String sourceId;
+    private final String headName;
+    private final String prevHash;
+    private final String currHash;
+    private final String configuration;
+    private final int hashCode;
+
+    EvaluationKey(@CheckForNull String sourceId, String headName, @CheckForNull String prevHash,
+                  @CheckForNull String currHash, String configuration) {
+        this.sourceId = sourceId;
+        this.headName = headName;
+        this.prevHash = prevHash;
+        this.currHash = currHash;
+        this.configuration = configuration;
+        this.hashCode = Objects.hash(sourceId, headName, prevHash, currHash, configuration);
+    }
+
+    String getHeadName() {
+        return headName;
+    }
+
+    @CheckForNull
+    String getPrevHash() {
+        return prevHash;
+    }
+
+    @CheckForNull
+    String getCurrHash() {
+        return currHash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EvaluationKey)) {
+            return false;
+        }
+        EvaluationKey that = (EvaluationKey) o;
+        return hashCode == that.hashCode
+                && Objects.equals(sourceId, that.sourceId)
+                && Objects.equals(headName, that.headName)
+                && Objects.equals(prevHash, that.prevHash)
+                && Objects.equals(currHash, that.currHash)
+                && Objects.equals(configuration, that.configuration);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s (%s..%s)", sourceId, headName, prevHash, currHash);
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.UniformReservoir;
+import hudson.Extension;
+import jenkins.metrics.api.MetricProvider;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controller-wide timings and counters of evaluations, published through the Metrics plugin
+ * <p>
+ * Timers use a uniform reservoir, which records a sample into a preallocated array, so recording on the evaluation
+ * path does not allocate.
+ */
+final class EvaluationStatistics implements MetricSet {
+    private static final String PREFIX = "ignore-committer-strategy";
+    private static final EvaluationStatistics INSTANCE = new EvaluationStatistics();
+
+    /**
+     * Timed phases of an evaluation
+     */
+    enum Phase {
+        /** the whole evaluation of a changeset that was not cached */
+        EVALUATION("evaluation"),
+        /** resolving a range from the commit author index */
+        INDEX("index"),
+        /** building the SCM of the head */
+        SCM_BUILD("scm-build"),
+        /** evaluating on an agent, includes fetching into the clone on the agent */
+        AGENT("agent"),
+        /** building the filesystem, which fetches the remote */
+        FILE_SYSTEM_BUILD("file-system-build"),
+        /** evaluating the other branches of a source ahead, once per source and branch indexing run */
+        BATCH("batch"),
+        /** walking a range in an already built filesystem */
+        RANGE_WALK("range-walk"),
+        /** reading the changelog, includes parsing and matching as they run while it is written */
+        CHANGELOG("changelog"),
+        /** parsing commits out of the changelog */
+        PARSE("parse"),
+        /** matching authors against the ignore list */
+        MATCH("match");
+
+        private final String metricName;
+
+        Phase(String metricName) {
+            this.metricName = metricName;
+        }
+    }
+
+    private final Timer[] phases = new Timer[Phase.values().length];
+    private final Counter builds = new Counter();
+    private final Counter skips = new Counter();
+    private final Counter errors = new Counter();
+    private final Counter interruptions = new Counter();
+    private final Timer timeouts = newTimer();
+    private final Counter commitLimitsReached = new Counter();
+    private final Counter changelogFallbacks = new Counter();
+    private final Timer remoteWaits = newTimer();
+    private final Counter coalesced = new Counter();
+    private final Timer listReloads = newTimer();
+    private final Map<String, Metric> metrics;
+
+    private EvaluationStatistics() {
+        Map<String, Metric> metrics = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            phases[phase.ordinal()] = newTimer();
+            metrics.put(MetricRegistry.name(PREFIX, "phase", phase.metricName), phases[phase.ordinal()]);
+        }
+        metrics.put(MetricRegistry.name(PREFIX, "verdicts", "build"), builds);
+        metrics.put(MetricRegistry.name(PREFIX, "verdicts", "skip"), skips);
+        metrics.put(MetricRegistry.name(PREFIX, "errors"), errors);
+        metrics.put(MetricRegistry.name(PREFIX, "interruptions"), interruptions);
+        metrics.put(MetricRegistry.name(PREFIX, "fallbacks", "timeout"), timeouts);
+        metrics.put(MetricRegistry.name(PREFIX, "fallbacks", "commit-limit"), commitLimitsReached);
+        metrics.put(MetricRegistry.name(PREFIX, "fallbacks", "changelog"), changelogFallbacks);
+        metrics.put(MetricRegistry.name(PREFIX, "coalesced"), coalesced);
+        metrics.put(MetricRegistry.name(PREFIX, "remote", "wait"), remoteWaits);
+        metrics.put(MetricRegistry.name(PREFIX, "remote", "queue-depth"), (Gauge<Integer>) () -> RemoteLimiter.get().getWaiting());
+        metrics.put(MetricRegistry.name(PREFIX, "remote", "queue-depth-by-host"),
+                (Gauge<Map<String, Integer>>) () -> RemoteLimiter.get().getWaitingByRemote());
+        metrics.put(MetricRegistry.name(PREFIX, "lists", "reload"), listReloads);
+        metrics.put(MetricRegistry.name(PREFIX, "lists", "entries"), (Gauge<Long>) () -> IgnoreListFiles.get().getEntries());
+        metrics.put(MetricRegistry.name(PREFIX, "cache", "hits"), (Gauge<Long>) () -> DecisionCache.get().getHits());
+        metrics.put(MetricRegistry.name(PREFIX, "cache", "misses"), (Gauge<Long>) () -> DecisionCache.get().getMisses());
+        metrics.put(MetricRegistry.name(PREFIX, "cache", "size"), (Gauge<Integer>) () -> DecisionCache.get().size());
+        this.metrics = Collections.unmodifiableMap(metrics);
+    }
+
+    private static Timer newTimer() {
+        return new Timer(new UniformReservoir());
+    }
+
+    static EvaluationStatistics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param phase        phase of the evaluation
+     * @param elapsedNanos time spent in the phase
+     */
+    void recordPhase(Phase phase, long elapsedNanos) {
+        phases[phase.ordinal()].update(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param build verdict returned to branch indexing
+     * @return the verdict
+     */
+    boolean recordVerdict(boolean build) {
+        (build ? builds : skips).inc();
+        return build;
+    }
+
+    void recordError() {
+        errors.inc();
+    }
+
+    /**
+     * Record an evaluation abandoned because its thread was interrupted, for example by an aborted branch indexing
+     */
+    void recordInterruption() {
+        interruptions.inc();
+    }
+
+    long getInterruptions() {
+        return interruptions.getCount();
+    }
+
+    /**
+     * @param elapsedNanos time spent waiting for the evaluation before giving up
+     */
+    void recordTimeout(long elapsedNanos) {
+        timeouts.update(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordCommitLimitReached() {
+        commitLimitsReached.inc();
+    }
+
+    /**
+     * Record that a range could not be walked in the repository and the changelog was read instead
+     */
+    void recordChangelogFallback() {
+        changelogFallbacks.inc();
+    }
+
+    /**
+     * @param elapsedNanos time spent waiting for a turn on a remote, see {@link RemoteLimiter}
+     */
+    void recordRemoteWait(long elapsedNanos) {
+        remoteWaits.update(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record an evaluation that waited for an identical one already running instead of running itself
+     */
+    void recordCoalesced() {
+        coalesced.inc();
+    }
+
+    long getCoalesced() {
+        return coalesced.getCount();
+    }
+
+    /**
+     * @param elapsedNanos time spent loading a new version of an ignore list file, see {@link IgnoreListFiles}
+     */
+    void recordListReload(long elapsedNanos) {
+        listReloads.update(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    long getListReloads() {
+        return listReloads.getCount();
+    }
+
+    long getRemoteWaits() {
+        return remoteWaits.getCount();
+    }
+
+    long getTimeouts() {
+        return timeouts.getCount();
+    }
+
+    long getCommitLimitsReached() {
+        return commitLimitsReached.getCount();
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Registers the statistics with the Metrics plugin
+     */
+    @Restricted(NoExternalUse.class)
+    @Extension
+    public static class MetricsProviderImpl extends MetricProvider {
+        @Override
+        public MetricSet getMetricSet() {
+            return EvaluationStatistics.get();
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import com.cloudbees.hudson.plugins.folder.computed.FolderComputation;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Executor;
+import hudson.model.PeriodicWork;
+import hudson.model.Queue;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+import hudson.plugins.git.GitSCM;
+import hudson.plugins.git.UserRemoteConfig;
+import hudson.scm.SCM;
+import jenkins.plugins.git.GitSCMFileSystem;
+import jenkins.scm.api.SCMSource;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Filesystems shared by every head of a source during one branch indexing run
+ * <p>
+ * Building a {@link GitSCMFileSystem} fetches the remote into the controller cache. Within one run the first head
+ * of a source pays for that, later heads walk their own range in the same repository with {@link RangeWalk}.
+ * A run is the executable on the current executor. Its filesystems are released as soon as the branch indexing
+ * computation records its result, and otherwise once the executor has moved on.
+ * <p>
+ * The pool also holds the {@link BatchEvaluation} of each source for the run, released along with the filesystems.
+ */
+@Restricted(NoExternalUse.class)
+public final class FileSystemPool {
+    private static final Logger LOGGER = Logger.getLogger(FileSystemPool.class.getName());
+    private static final FileSystemPool INSTANCE = new FileSystemPool();
+
+    private final Map<Scope, Map<String, GitSCMFileSystem>> scopes = new HashMap<>();
+    private final Map<Scope, Map<String, BatchEvaluation>> batches = new HashMap<>();
+
+    static FileSystemPool get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the branch indexing run on the current thread, or null if not running on an executor
+     */
+    @CheckForNull
+    static Scope currentScope() {
+        Executor executor = Executor.currentExecutor();
+        if (executor == null) {
+            return null;
+        }
+        Queue.Executable executable = executor.getCurrentExecutable();
+        return executable != null ? new Scope(executor, executable) : null;
+    }
+
+    /**
+     * @return pool key of the source and its remote, or null if the remote is not known
+     */
+    @CheckForNull
+    static String keyOf(SCMSource source, SCM scm) {
+        if (!(scm instanceof GitSCM)) {
+            return null;
+        }
+        List<UserRemoteConfig> remotes = ((GitSCM) scm).getUserRemoteConfigs();
+        if (remotes.isEmpty() || remotes.get(0).getUrl() == null) {
+            return null;
+        }
+        return source.getId() + " " + remotes.get(0).getUrl();
+    }
+
+    @CheckForNull
+    synchronized GitSCMFileSystem lookup(Scope scope, String key) {
+        Map<String, GitSCMFileSystem> fileSystems = scopes.get(scope);
+        return fileSystems != null ? fileSystems.get(key) : null;
+    }
+
+    /**
+     * Share a filesystem with the rest of the run, unless another one is shared already
+     */
+    synchronized void offer(Scope scope, String key, GitSCMFileSystem fileSystem) {
+        if (scope.isDone()) {
+            return;
+        }
+        scopes.computeIfAbsent(scope, s -> new HashMap<>()).putIfAbsent(key, fileSystem);
+    }
+
+    @CheckForNull
+    synchronized BatchEvaluation lookupBatch(Scope scope, String key) {
+        Map<String, BatchEvaluation> scopeBatches = batches.get(scope);
+        return scopeBatches != null ? scopeBatches.get(key) : null;
+    }
+
+    /**
+     * Start the batch evaluation of a source for the run
+     *
+     * @return the new, still empty batch evaluation, or null if the run already has one for the key
+     */
+    @CheckForNull
+    synchronized BatchEvaluation claimBatch(Scope scope, String key) {
+        if (scope.isDone()) {
+            return null;
+        }
+        Map<String, BatchEvaluation> scopeBatches = batches.computeIfAbsent(scope, s -> new HashMap<>());
+        if (scopeBatches.containsKey(key)) {
+            return null;
+        }
+        BatchEvaluation batch = new BatchEvaluation();
+        scopeBatches.put(key, batch);
+        return batch;
+    }
+
+    /**
+     * Close the filesystems of runs that have finished and stop evaluating their branches ahead
+     */
+    void release() {
+        release(Scope::isDone);
+    }
+
+    /**
+     * Close the filesystems of a run that has just finished, while its executor may still report it as running
+     *
+     * @param executable the finished run
+     */
+    void release(Queue.Executable executable) {
+        release(scope -> scope.executable == executable || scope.isDone());
+    }
+
+    private void release(Predicate<Scope> finished) {
+        List<GitSCMFileSystem> released = new ArrayList<>();
+        List<BatchEvaluation> cancelled = new ArrayList<>();
+        synchronized (this) {
+            for (Iterator<Map.Entry<Scope, Map<String, GitSCMFileSystem>>> it = scopes.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Scope, Map<String, GitSCMFileSystem>> entry = it.next();
+                if (finished.test(entry.getKey())) {
+                    released.addAll(entry.getValue().values());
+                    it.remove();
+                }
+            }
+            for (Iterator<Map.Entry<Scope, Map<String, BatchEvaluation>>> it = batches.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Scope, Map<String, BatchEvaluation>> entry = it.next();
+                if (finished.test(entry.getKey())) {
+                    cancelled.addAll(entry.getValue().values());
+                    it.remove();
+                }
+            }
+        }
+        // an aborted run may leave a batch walking on a prefetch thread, interrupt it
+        for (BatchEvaluation batch : cancelled) {
+            batch.cancel();
+        }
+        for (GitSCMFileSystem fileSystem : released) {
+            try {
+                fileSystem.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Unable to close pooled filesystem", e);
+            }
+        }
+    }
+
+    /**
+     * One executable on one executor, compared by identity
+     */
+    static final class Scope {
+        private final Executor executor;
+        private final Queue.Executable executable;
+
+        Scope(Executor executor, Queue.Executable executable) {
+            this.executor = executor;
+            this.executable = executable;
+        }
+
+        boolean isDone() {
+            return executor.getCurrentExecutable() != executable;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Scope)) {
+                return false;
+            }
+            Scope that = (Scope) o;
+            return executor == that.executor && executable == that.executable;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(executable);
+        }
+    }
+
+    /**
+     * Releases the filesystems of a branch indexing run as soon as it records its result
+     */
+    @Extension
+    public static final class ComputationListener extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            // a computation is saved once more when it finishes, with its result set
+            if (o instanceof FolderComputation && ((FolderComputation<?>) o).getResult() != null) {
+                FileSystemPool.get().release((Queue.Executable) o);
+            }
+        }
+    }
+
+    /**
+     * Releases the filesystems of finished runs that were not released when they finished, for example runs of
+     * other kinds than branch indexing
+     */
+    @Extension
+    public static final class Releaser extends PeriodicWork {
+        @Override
+        public long getRecurrencePeriod() {
+            return TimeUnit.SECONDS.toMillis(10);
+        }
+
+        @Override
+        protected void doRun() {
+            FileSystemPool.get().release();
+        }
+    }
+}
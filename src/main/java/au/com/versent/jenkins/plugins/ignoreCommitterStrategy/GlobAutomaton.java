@@ -0,0 +1,225 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Deterministic automaton matching any of a set of glob patterns
+ * <p>
+ * {@code *} matches any sequence of characters and {@code ?} any single character, everything else matches itself.
+ * All patterns are combined into one automaton when compiled, so matching costs one table lookup per character
+ * however many patterns there are.
+ */
+final class GlobAutomaton {
+    static final int DEFAULT_MAX_STATES = 10000;
+
+    // characters that appear literally in some pattern, sorted, every other character is class 0
+    private final char[] alphabet;
+    private final int[] asciiClasses;
+    private final int classes;
+    private final int[] transitions;
+    private final boolean[] accepting;
+
+    private GlobAutomaton(char[] alphabet, int[] asciiClasses, int[] transitions, boolean[] accepting) {
+        this.alphabet = alphabet;
+        this.asciiClasses = asciiClasses;
+        this.classes = alphabet.length + 1;
+        this.transitions = transitions;
+        this.accepting = accepting;
+    }
+
+    /**
+     * @param entry ignore list entry
+     * @return true if the entry is a glob rather than a literal email
+     */
+    static boolean isGlob(String entry) {
+        return entry.indexOf('*') >= 0 || entry.indexOf('?') >= 0;
+    }
+
+    /**
+     * Compile globs into one automaton
+     *
+     * @param globs     glob patterns
+     * @param maxStates most states the automaton may have
+     * @return automaton, or null if the patterns need more than maxStates states
+     */
+    @CheckForNull
+    static GlobAutomaton compile(List<String> globs, int maxStates) {
+        // the NFA has one state per pattern position, offsets[i] is the first state of pattern i and the state
+        // after its last position accepts
+        int[] offsets = new int[globs.size() + 1];
+        StringBuilder tokens = new StringBuilder();
+        TreeSet<Character> literals = new TreeSet<>();
+        for (int i = 0; i < globs.size(); i++) {
+            offsets[i] = tokens.length();
+            String glob = globs.get(i);
+            tokens.append(glob).append('\0');
+            for (int j = 0; j < glob.length(); j++) {
+                char c = glob.charAt(j);
+                if (c != '*' && c != '?') {
+                    literals.add(c);
+                }
+            }
+        }
+        offsets[globs.size()] = tokens.length();
+
+        char[] alphabet = new char[literals.size()];
+        int[] asciiClasses = new int[128];
+        int n = 0;
+        for (char c : literals) {
+            alphabet[n++] = c;
+            if (c < 128) {
+                asciiClasses[c] = n;
+            }
+        }
+        int classes = alphabet.length + 1;
+
+        List<BitSet> states = new ArrayList<>();
+        Map<BitSet, Integer> ids = new HashMap<>();
+        Deque<Integer> pending = new ArrayDeque<>();
+        int[] transitions = new int[16 * classes];
+
+        BitSet start = new BitSet();
+        for (int i = 0; i < globs.size(); i++) {
+            close(tokens, offsets[i], start);
+        }
+        states.add(start);
+        ids.put(start, 0);
+        pending.add(0);
+
+        while (!pending.isEmpty()) {
+            int id = pending.poll();
+            BitSet from = states.get(id);
+            for (int cls = 0; cls < classes; cls++) {
+                BitSet to = step(tokens, from, cls == 0 ? -1 : alphabet[cls - 1]);
+                int target;
+                if (to.isEmpty()) {
+                    target = -1;
+                } else {
+                    Integer existing = ids.get(to);
+                    if (existing == null) {
+                        if (states.size() >= maxStates) {
+                            return null;
+                        }
+                        existing = states.size();
+                        states.add(to);
+                        ids.put(to, existing);
+                        pending.add(existing);
+                    }
+                    target = existing;
+                }
+                int index = id * classes + cls;
+                if (index >= transitions.length) {
+                    transitions = Arrays.copyOf(transitions, Math.max(transitions.length * 2, index + classes));
+                }
+                transitions[index] = target;
+            }
+        }
+
+        boolean[] accepting = new boolean[states.size()];
+        for (int id = 0; id < accepting.length; id++) {
+            BitSet state = states.get(id);
+            for (int position = state.nextSetBit(0); position >= 0; position = state.nextSetBit(position + 1)) {
+                if (tokens.charAt(position) == '\0') {
+                    accepting[id] = true;
+                    break;
+                }
+            }
+        }
+        return new GlobAutomaton(alphabet, asciiClasses, Arrays.copyOf(transitions, states.size() * classes), accepting);
+    }
+
+    // a star can match the empty sequence, so reaching it also reaches the position after it
+    private static void close(CharSequence tokens, int position, BitSet state) {
+        state.set(position);
+        while (tokens.charAt(position) == '*') {
+            state.set(++position);
+        }
+    }
+
+    // c is -1 for characters that are not literal in any pattern
+    private static BitSet step(CharSequence tokens, BitSet from, int c) {
+        BitSet to = new BitSet();
+        for (int position = from.nextSetBit(0); position >= 0; position = from.nextSetBit(position + 1)) {
+            char token = tokens.charAt(position);
+            if (token == '*') {
+                close(tokens, position, to);
+            } else if (token == '?' || token == c) {
+                close(tokens, position + 1, to);
+            }
+        }
+        return to;
+    }
+
+    /**
+     * @return number of states of the automaton
+     */
+    int size() {
+        return accepting.length;
+    }
+
+    /**
+     * @param text normalized author email
+     * @return true if any of the patterns matches the whole text
+     */
+    boolean matches(CharSequence text) {
+        return matches(text, 0, text.length());
+    }
+
+    /**
+     * @param text  text containing the author email, compared case-insensitively
+     * @param start first index of the email
+     * @param end   index after the last character of the email
+     * @return true if any of the patterns matches the whole email
+     */
+    boolean matches(CharSequence text, int start, int end) {
+        int state = 0;
+        for (int i = start; i < end; i++) {
+            state = transitions[state * classes + classOf(CaseFolding.fold(text.charAt(i)))];
+            if (state < 0) {
+                return false;
+            }
+        }
+        return accepting[state];
+    }
+
+    private int classOf(char c) {
+        if (c < 128) {
+            return asciiClasses[c];
+        }
+        int index = Arrays.binarySearch(alphabet, c);
+        return index >= 0 ? index + 1 : 0;
+    }
+}
@@ -26,41 +26,78 @@ package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
 
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import hudson.Extension;
+import hudson.model.CauseAction;
+import hudson.Util;
 import hudson.model.Job;
+import hudson.plugins.git.GitSCM;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
 import hudson.scm.SCM;
 import jenkins.model.Jenkins;
 import jenkins.plugins.git.AbstractGitSCMSource;
 import jenkins.scm.api.*;
+import jenkins.util.SystemProperties;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
 import jenkins.branch.BranchBuildStrategy;
 import jenkins.branch.BranchBuildStrategyDescriptor;
+import jenkins.branch.MultiBranchProject;
+import jenkins.model.ParameterizedJobMixIn;
 
-import java.util.List;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Logger;
 
 import jenkins.plugins.git.GitSCMFileSystem;
 
-import java.io.ByteArrayOutputStream;
-import java.io.ByteArrayInputStream;
-
-import hudson.plugins.git.GitChangeLogParser;
-import hudson.plugins.git.GitChangeSet;
 import java.util.logging.Level;
 
-import java.util.Arrays;
-import java.util.stream.Collectors;
-
 public class IgnoreCommitterStrategy extends BranchBuildStrategy {
     private static final Logger LOGGER = Logger.getLogger(IgnoreCommitterStrategy.class.getName());
-    private final String ignoredAuthors;
+    private static final RateLimitedLogger RATE_LIMITED_LOGGER = new RateLimitedLogger(LOGGER);
+    // read commit headers from the repository instead of the changesSince changelog where possible
+    private static final boolean AUTHOR_ONLY_RETRIEVAL = SystemProperties.getBoolean(
+            IgnoreCommitterStrategy.class.getName() + ".authorOnlyRetrieval", true);
+    // identical evaluations running at the same time, shared by every strategy of the controller
+    private static final SingleFlight<EvaluationKey, Boolean> IN_FLIGHT = new SingleFlight<>();
+    // ignore lists and configuration keys in use, one copy each however many jobs have them
+    static final WeakInterner STRINGS = new WeakInterner();
+    private String ignoredAuthors;
     private final Boolean allowBuildIfNotExcludedAuthor;
+    private Integer evaluationTimeoutSeconds;
+    private TimeoutVerdict timeoutVerdict;
+    private Integer maxCommits;
+    private Boolean buildWhenCommitLimitReached;
+    private String agentLabel;
+    private String authorListId;
+    private String ignoredAuthorsFile;
+    private transient volatile Resolution resolution;
 
     @DataBoundConstructor
     public IgnoreCommitterStrategy(String ignoredAuthors, Boolean allowBuildIfNotExcludedAuthor) {
-        this.ignoredAuthors = ignoredAuthors;
+        this.ignoredAuthors = intern(ignoredAuthors);
         this.allowBuildIfNotExcludedAuthor = allowBuildIfNotExcludedAuthor;
     }
 
+    /**
+     * Share the ignore list of instances loaded from disk with every other job that has the same one
+     * <p>
+     * Nothing is compiled here, the matcher is looked up on the first evaluation
+     *
+     * @return this strategy
+     */
+    protected Object readResolve() {
+        ignoredAuthors = intern(ignoredAuthors);
+        return this;
+    }
+
     /**
      * Get comma-separated list of ignored commit authors
      *
@@ -76,6 +113,183 @@ public class IgnoreCommitterStrategy extends BranchBuildStrategy {
      */
     public Boolean getAllowBuildIfNotExcludedAuthor() { return allowBuildIfNotExcludedAuthor; }
 
+    /**
+     * Get the time budget of one evaluation
+     *
+     * @return timeout in seconds, 0 if evaluations are not limited
+     */
+    public int getEvaluationTimeoutSeconds() {
+        return evaluationTimeoutSeconds != null ? evaluationTimeoutSeconds : 0;
+    }
+
+    @DataBoundSetter
+    public void setEvaluationTimeoutSeconds(Integer evaluationTimeoutSeconds) {
+        this.evaluationTimeoutSeconds = evaluationTimeoutSeconds;
+    }
+
+    /**
+     * Get the verdict used when an evaluation runs out of time
+     *
+     * @return timeout verdict, build if not configured
+     */
+    public TimeoutVerdict getTimeoutVerdict() {
+        return timeoutVerdict != null ? timeoutVerdict : TimeoutVerdict.BUILD;
+    }
+
+    @DataBoundSetter
+    public void setTimeoutVerdict(TimeoutVerdict timeoutVerdict) {
+        this.timeoutVerdict = timeoutVerdict;
+    }
+
+    /**
+     * Get the most commits inspected in one changeset
+     *
+     * @return commit limit, 0 if changesets are not limited
+     */
+    public int getMaxCommits() {
+        return maxCommits != null ? maxCommits : 0;
+    }
+
+    @DataBoundSetter
+    public void setMaxCommits(Integer maxCommits) {
+        this.maxCommits = maxCommits;
+        this.resolution = null;
+    }
+
+    /**
+     * Determine if build is required when a changeset has more commits than the limit
+     *
+     * @return verdict once the commit limit is reached, true if not configured
+     */
+    public boolean getBuildWhenCommitLimitReached() {
+        return buildWhenCommitLimitReached == null || buildWhenCommitLimitReached;
+    }
+
+    @DataBoundSetter
+    public void setBuildWhenCommitLimitReached(Boolean buildWhenCommitLimitReached) {
+        this.buildWhenCommitLimitReached = buildWhenCommitLimitReached;
+        this.resolution = null;
+    }
+
+    /**
+     * Get the label of the agents changesets are evaluated on
+     *
+     * @return label expression, or null if changesets are evaluated on the controller
+     */
+    @CheckForNull
+    public String getAgentLabel() {
+        return agentLabel;
+    }
+
+    @DataBoundSetter
+    public void setAgentLabel(String agentLabel) {
+        this.agentLabel = Util.fixEmptyAndTrim(agentLabel);
+    }
+
+    /**
+     * Get the id of the global ignored author list applied along with the authors of this strategy
+     *
+     * @return list id, or null if only the authors of this strategy are ignored
+     */
+    @CheckForNull
+    public String getAuthorListId() {
+        return authorListId;
+    }
+
+    @DataBoundSetter
+    public void setAuthorListId(String authorListId) {
+        this.authorListId = Util.fixEmptyAndTrim(authorListId);
+        this.resolution = null;
+    }
+
+    /**
+     * Get the ignore list file whose emails are ignored along with the authors of this strategy
+     *
+     * @return file name relative to {@code JENKINS_HOME/ignore-committer-strategy/lists}, or null if none
+     */
+    @CheckForNull
+    public String getIgnoredAuthorsFile() {
+        return ignoredAuthorsFile;
+    }
+
+    @DataBoundSetter
+    public void setIgnoredAuthorsFile(String ignoredAuthorsFile) {
+        this.ignoredAuthorsFile = Util.fixEmptyAndTrim(ignoredAuthorsFile);
+        this.resolution = null;
+    }
+
+    /**
+     * Everything that affects the verdict, used to keep cached verdicts apart when the configuration changes
+     *
+     * @return configuration key of this strategy
+     */
+    String configurationKey() {
+        return resolve().configurationKey;
+    }
+
+    /**
+     * Combine the authors of this strategy with the global list and the file it refers to, again only once the list
+     * or the file is replaced
+     */
+    private Resolution resolve() {
+        AuthorList list = authorListId != null ? IgnoredAuthorLists.lookup(authorListId) : null;
+        MappedEmailSet emailSet = ignoredAuthorsFile != null ? IgnoreListFiles.get().lookup(ignoredAuthorsFile) : null;
+        Resolution current = resolution;
+        if (current != null && current.list == list && current.emailSet == emailSet) {
+            return current;
+        }
+        if (authorListId != null && list == null) {
+            RATE_LIMITED_LOGGER.log(Level.WARNING, "Ignored author list " + authorListId
+                    + " is not defined, ignoring the authors of the strategy only");
+        }
+
+        String authors = ignoredAuthors;
+        if (list != null) {
+            authors = Util.fixEmptyAndTrim(ignoredAuthors) == null ? list.getAuthors() : list.getAuthors() + "," + ignoredAuthors;
+        }
+        // strategies with equivalent configurations share the matcher and the strings the cache is keyed by
+        authors = intern(AuthorMatcher.canonical(authors));
+        // a strategy without authors of its own uses the matcher compiled when the list was saved
+        AuthorMatcher matcher = list != null && Util.fixEmptyAndTrim(ignoredAuthors) == null
+                ? list.getMatcher() : AuthorMatcher.shared(authors);
+        String file = emailSet != null ? "|" + ignoredAuthorsFile + "@" + emailSet.getVersion() : "";
+        current = new Resolution(list, emailSet, authors, matcher.withEmailSet(emailSet),
+                intern(allowBuildIfNotExcludedAuthor + "|" + getMaxCommits() + "|" + getBuildWhenCommitLimitReached()
+                        + "|" + authors + file));
+        resolution = current;
+        return current;
+    }
+
+    /**
+     * @return matcher of the ignored authors as currently resolved
+     */
+    AuthorMatcher ignoredAuthorsMatcher() {
+        return resolve().matcher;
+    }
+
+    @CheckForNull
+    static String intern(@CheckForNull String value) {
+        return value != null ? STRINGS.intern(value) : null;
+    }
+
+    /**
+     * Get the commit hash of a revision the same way it is passed to {@link GitSCMFileSystem}
+     *
+     * @param revision revision, may be null
+     * @return commit hash or null if revision is null
+     */
+    @CheckForNull
+    static String hashOf(@CheckForNull SCMRevision revision) {
+        if (revision == null) {
+            return null;
+        }
+        if (revision instanceof AbstractGitSCMSource.SCMRevisionImpl) {
+            return ((AbstractGitSCMSource.SCMRevisionImpl) revision).getHash();
+        }
+        String hash = revision.toString();
+        return hash.length() > 40 ? hash.substring(0, 40) : hash;
+    }
+
     /**
      * Determine if build is required by checking if any of the commit authors is in the ignore list
      * and/or if changesets with at least one non excluded author are allowed
@@ -86,79 +300,407 @@ public class IgnoreCommitterStrategy extends BranchBuildStrategy {
      */
     @Override
     public boolean isAutomaticBuild(SCMSource source, SCMHead head, SCMRevision currRevision, SCMRevision prevRevision) {
-        GitSCMFileSystem.Builder builder = new GitSCMFileSystem.BuilderImpl();
+        // one evaluation applies one version of the global list throughout
+        Resolution resolved = resolve();
+        EvaluationKey key = new EvaluationKey(source.getId(), head.getName(), hashOf(prevRevision), hashOf(currRevision),
+                resolved.configurationKey);
+        DecisionCache cache = DecisionCache.get();
+        EvaluationStatistics statistics = EvaluationStatistics.get();
 
+        Boolean verdict = cache.lookup(key);
+        if (verdict != null) {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine(String.format("Using cached verdict for %s, build is %s", key, verdict));
+            }
+            return statistics.recordVerdict(verdict);
+        }
+
+        FileSystemPool.Scope scope = FileSystemPool.currentScope();
+        int timeout = getEvaluationTimeoutSeconds();
+        if (timeout <= 0) {
+            verdict = evaluate(source, head, currRevision, prevRevision, scope, key, resolved);
+            if (verdict == null && Thread.currentThread().isInterrupted()) {
+                // branch indexing was aborted, the interruption is counted and the fallback is not a verdict
+                return true;
+            }
+        } else {
+            long started = System.nanoTime();
+            EvaluationExecutor.Evaluation evaluation;
+            try {
+                evaluation = EvaluationExecutor.submit(
+                        () -> evaluate(source, head, currRevision, prevRevision, scope, key, resolved));
+            } catch (RejectedExecutionException e) {
+                return statistics.recordVerdict(onRejected());
+            }
+            try {
+                verdict = evaluation.get(timeout, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                return statistics.recordVerdict(onTimeout(evaluation, source, head, key, System.nanoTime() - started));
+            } catch (InterruptedException e) {
+                // the cancelled evaluation counts the interruption when it stops
+                evaluation.cancel(true);
+                Thread.currentThread().interrupt();
+                return true;
+            } catch (ExecutionException e) {
+                RATE_LIMITED_LOGGER.log(Level.SEVERE, "Unable to evaluate changeset: " + e.getCause(), e.getCause());
+                statistics.recordError();
+                verdict = null;
+            }
+        }
+
+        if (verdict == null) {
+            // evaluation failed, build and try again next time
+            return statistics.recordVerdict(true);
+        }
+        cache.store(key, verdict);
+        return statistics.recordVerdict(verdict);
+    }
+
+    /**
+     * Apply the configured verdict to an evaluation that ran out of time
+     *
+     * @return true if build is required
+     */
+    private boolean onTimeout(EvaluationExecutor.Evaluation evaluation, SCMSource source, SCMHead head,
+                              EvaluationKey key, long elapsedNanos) {
+        TimeoutVerdict fallback = getTimeoutVerdict();
+        EvaluationStatistics.get().recordTimeout(elapsedNanos);
+        LOGGER.warning(String.format("Evaluation of %s did not finish within %d seconds (waited %d ms), verdict is %s",
+                key, getEvaluationTimeoutSeconds(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos), fallback));
+
+        if (fallback != TimeoutVerdict.DEFER) {
+            evaluation.cancel(true);
+            return fallback == TimeoutVerdict.BUILD;
+        }
+
+        evaluation.whenDone(verdict -> {
+            if (verdict == null) {
+                // the branch was skipped on the promise of a verdict, build rather than miss the change
+                RATE_LIMITED_LOGGER.log(Level.WARNING, "Deferred evaluation failed, scheduling a build");
+                scheduleDeferredBuild(source, head);
+                return;
+            }
+            DecisionCache.get().store(key, verdict);
+            if (verdict) {
+                scheduleDeferredBuild(source, head);
+            }
+        });
+        return false;
+    }
+
+    /**
+     * Apply the configured verdict to an evaluation that could not even be queued, as if it ran out of time
+     *
+     * @return true if build is required
+     */
+    private boolean onRejected() {
+        TimeoutVerdict fallback = getTimeoutVerdict();
+        EvaluationStatistics.get().recordTimeout(0);
+        // nothing is left running to decide a deferred verdict later, build rather than miss the change
+        boolean build = fallback != TimeoutVerdict.SKIP;
+        RATE_LIMITED_LOGGER.log(Level.WARNING, "Every evaluation thread is busy and the queue is full, changesets are "
+                + "not evaluated, build is " + build);
+        return build;
+    }
+
+    private static void scheduleDeferredBuild(SCMSource source, SCMHead head) {
+        SCMSourceOwner owner = source.getOwner();
+        if (!(owner instanceof MultiBranchProject)) {
+            return;
+        }
+        Job<?, ?> job = ((MultiBranchProject<?, ?>) owner).getItemByBranchName(head.getName());
+        if (job == null) {
+            LOGGER.warning(String.format("Deferred evaluation of %s requires a build but the branch job does not exist",
+                    head.getName()));
+            return;
+        }
+        LOGGER.info(String.format("Deferred evaluation of %s requires a build, scheduling %s", head.getName(),
+                job.getFullName()));
+        ParameterizedJobMixIn.scheduleBuild2(job, 0, new CauseAction(new DeferredBuildCause()));
+    }
+
+    /**
+     * Evaluate the changeset between two revisions, or wait for an identical evaluation that is already running
+     *
+     * @param scope    branch indexing run the evaluation is part of, captured on the indexing thread
+     * @param key      identity of the evaluation
+     * @param resolved ignored authors as resolved when the evaluation started
+     * @return true if build is required, false if not, or null if the changeset could not be evaluated
+     */
+    @CheckForNull
+    private Boolean evaluate(SCMSource source, SCMHead head, SCMRevision currRevision, SCMRevision prevRevision,
+                             @CheckForNull FileSystemPool.Scope scope, EvaluationKey key, Resolution resolved) {
+        long started = System.nanoTime();
         try {
+            return IN_FLIGHT.run(key, () -> evaluateChangeset(source, head, currRevision, prevRevision, scope, resolved));
+        } catch (InterruptedException e) {
+            // interrupted while waiting for the identical evaluation
+            Thread.currentThread().interrupt();
+            EvaluationStatistics.get().recordInterruption();
+            return null;
+        } finally {
+            EvaluationStatistics.get().recordPhase(EvaluationStatistics.Phase.EVALUATION, System.nanoTime() - started);
+        }
+    }
+
+    @CheckForNull
+    private Boolean evaluateChangeset(SCMSource source, SCMHead head, SCMRevision currRevision, SCMRevision prevRevision,
+                                      @CheckForNull FileSystemPool.Scope scope, Resolution resolved) {
+        long evaluationStarted = System.nanoTime();
+        GitSCMFileSystem.Builder builder = newFileSystemBuilder();
+        CommitAuthorIndex index = CommitAuthorIndex.get();
+        EvaluationStatistics statistics = EvaluationStatistics.get();
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine(String.format("Ignored authors: %s", resolved.matcher));
+        }
+
+        try {
+            long started;
+            String batchKey = source.getId() + "|" + resolved.configurationKey;
+            BatchEvaluation batch = scope != null ? FileSystemPool.get().lookupBatch(scope, batchKey) : null;
+            BatchEvaluation.Range range = batch != null
+                    ? batch.await(head.getName(), hashOf(prevRevision), hashOf(currRevision)) : null;
+            if (range != null) {
+                return summarize(head, currRevision, prevRevision, "batch", range.getReason(), range.getCommits(),
+                        range.getVerdict(), evaluationStarted);
+            }
+
+            checkInterrupted();
+            if (index != null) {
+                started = System.nanoTime();
+                ChangelogEvaluator evaluator = newEvaluator(resolved, false);
+                Boolean verdict = index.resolve(hashOf(currRevision), hashOf(prevRevision), evaluator);
+                statistics.recordPhase(EvaluationStatistics.Phase.INDEX, System.nanoTime() - started);
+                if (verdict != null) {
+                    return summarize(head, currRevision, prevRevision, "index", evaluator, verdict, evaluationStarted);
+                }
+            }
+
+            checkInterrupted();
+            started = System.nanoTime();
             SCM scm = source.build(head, currRevision);
+            statistics.recordPhase(EvaluationStatistics.Phase.SCM_BUILD, System.nanoTime() - started);
             SCMSourceOwner owner = source.getOwner();
 
             if (owner == null) {
-                LOGGER.log(Level.SEVERE, "Error retrieving SCMSourceOwner");
-                return true;
+                RATE_LIMITED_LOGGER.log(Level.SEVERE, "Error retrieving SCMSourceOwner");
+                statistics.recordError();
+                return null;
             }
 
-            SCMFileSystem fileSystem;
-            if (currRevision != null && !(currRevision instanceof AbstractGitSCMSource.SCMRevisionImpl)) {
-                fileSystem = builder.build(source, head, new AbstractGitSCMSource.SCMRevisionImpl(head, currRevision.toString().substring(0,40)));
-            } else {
-                fileSystem = builder.build(owner, scm, currRevision);
+            // agents only receive the configured authors, an ignore list file stays on the controller
+            if (agentLabel != null && resolved.emailSet == null && currRevision != null && scm instanceof GitSCM) {
+                started = System.nanoTime();
+                AgentEvaluation.Result result = AgentEvaluation.evaluate(agentLabel, owner, (GitSCM) scm,
+                        hashOf(currRevision), hashOf(prevRevision), new AgentEvaluation.Rule(resolved.authors,
+                                allowBuildIfNotExcludedAuthor, getMaxCommits(), getBuildWhenCommitLimitReached()));
+                statistics.recordPhase(EvaluationStatistics.Phase.AGENT, System.nanoTime() - started);
+                if (result != null && result.getVerdict() != null) {
+                    return summarize(head, currRevision, prevRevision, "agent:" + result.getNodeName(),
+                            result.getReason(), result.getCommits(), result.getVerdict(), evaluationStarted);
+                }
+                // no agent online, or the range is not reachable from the agent, read it on the controller
+                statistics.recordChangelogFallback();
             }
 
-            if (fileSystem == null) {
-                LOGGER.log(Level.SEVERE, "Error retrieving SCMFileSystem");
-                return true;
+            String poolKey = scope != null ? FileSystemPool.keyOf(source, scm) : null;
+            if (poolKey != null && currRevision != null) {
+                GitSCMFileSystem pooled = FileSystemPool.get().lookup(scope, poolKey);
+                if (pooled != null) {
+                    ChangelogEvaluator evaluator = newEvaluator(resolved, index != null);
+                    started = System.nanoTime();
+                    Boolean verdict = pooled.invoke(new RangeWalk(hashOf(currRevision), hashOf(prevRevision), evaluator));
+                    statistics.recordPhase(EvaluationStatistics.Phase.RANGE_WALK, System.nanoTime() - started);
+                    if (verdict != null) {
+                        if (index != null) {
+                            index.record(evaluator.getRecordedCommits());
+                        }
+                        return summarize(head, currRevision, prevRevision, "pooled-range-walk", evaluator, verdict,
+                                evaluationStarted);
+                    }
+                    // range not fetched into the pooled repository yet, build a filesystem for this head
+                    statistics.recordChangelogFallback();
+                }
             }
 
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-
-            if (prevRevision != null && !(prevRevision instanceof AbstractGitSCMSource.SCMRevisionImpl)) {
-                fileSystem.changesSince(new AbstractGitSCMSource.SCMRevisionImpl(head,prevRevision.toString().substring(0,40)), out);
-            } else {
-                fileSystem.changesSince(prevRevision, out);
+            checkInterrupted();
+            String remote = RemoteLimiter.keyOf(scm);
+            started = System.nanoTime();
+            SCMFileSystem fileSystem;
+            try (RemoteLimiter.Permit permit = RemoteLimiter.get().acquire(remote)) {
+                if (currRevision != null && !(currRevision instanceof AbstractGitSCMSource.SCMRevisionImpl)) {
+                    fileSystem = builder.build(source, head, new AbstractGitSCMSource.SCMRevisionImpl(head, currRevision.toString().substring(0,40)));
+                } else {
+                    fileSystem = builder.build(owner, scm, currRevision);
+                }
             }
+            statistics.recordPhase(EvaluationStatistics.Phase.FILE_SYSTEM_BUILD, System.nanoTime() - started);
 
-            GitChangeLogParser parser = new GitChangeLogParser(true);
-
-            List<GitChangeSet> logs = parser.parse(new ByteArrayInputStream(out.toByteArray()));
-            List<String> ignoredAuthorsList = Arrays.stream(
-                    ignoredAuthors.split(",")).map(e -> e.trim().toLowerCase()).collect(Collectors.toList());
+            if (fileSystem == null) {
+                RATE_LIMITED_LOGGER.log(Level.SEVERE, "Error retrieving SCMFileSystem");
+                statistics.recordError();
+                return null;
+            }
 
-            LOGGER.info(String.format("Ignored authors: %s", ignoredAuthorsList.toString()));
+            if (poolKey != null && fileSystem instanceof GitSCMFileSystem) {
+                FileSystemPool.get().offer(scope, poolKey, (GitSCMFileSystem) fileSystem);
+                batch = currRevision != null && owner instanceof MultiBranchProject && scm instanceof GitSCM
+                        && !((GitSCM) scm).getRepositories().isEmpty()
+                        ? FileSystemPool.get().claimBatch(scope, batchKey) : null;
+                if (batch != null) {
+                    // the fetch for this head brought in the other branches too, start evaluating them ahead
+                    // along with this head
+                    try {
+                        batch.start((MultiBranchProject<?, ?>) owner, source, (GitSCMFileSystem) fileSystem,
+                                ((GitSCM) scm).getRepositories().get(0).getName(), head.getName(),
+                                hashOf(prevRevision), hashOf(currRevision), () -> newEvaluator(resolved, index != null), index);
+                        range = batch.await(head.getName(), hashOf(prevRevision), hashOf(currRevision));
+                    } catch (IOException | RuntimeException e) {
+                        if (isInterruption(e)) {
+                            throw e;
+                        }
+                        RATE_LIMITED_LOGGER.log(Level.WARNING, "Unable to evaluate branches ahead: " + e, e);
+                    }
+                    if (range != null) {
+                        return summarize(head, currRevision, prevRevision, "batch", range.getReason(),
+                                range.getCommits(), range.getVerdict(), evaluationStarted);
+                    }
+                }
+            }
 
-            for (GitChangeSet log : logs) {
-                String authorEmail = log.getAuthorEmail().trim().toLowerCase();
-                Boolean isIgnoredAuthor = ignoredAuthorsList.contains(authorEmail);
+            ChangelogEvaluator evaluator = newEvaluator(resolved, index != null);
 
-                if (isIgnoredAuthor) {
-                    if (!allowBuildIfNotExcludedAuthor) {
-                        // if author is ignored and changesets with at least one non-excluded author are not allowed
-                        LOGGER.info(String.format(
-                                "Changeset contains ignored author %s (%s), and allowBuildIfNotExcludedAuthor is %s, therefore build is not required",
-                                authorEmail, log.getCommitId(), allowBuildIfNotExcludedAuthor));
-                        return false;
+            if ((AUTHOR_ONLY_RETRIEVAL || getMaxCommits() > 0) && currRevision != null && fileSystem instanceof GitSCMFileSystem) {
+                // only the author of each commit is needed, walk commit headers rather than reading the full changelog
+                // with messages and changed files, this also stops git reading at the commit limit
+                started = System.nanoTime();
+                Boolean verdict = ((GitSCMFileSystem) fileSystem).invoke(
+                        new RangeWalk(hashOf(currRevision), hashOf(prevRevision), evaluator));
+                statistics.recordPhase(EvaluationStatistics.Phase.RANGE_WALK, System.nanoTime() - started);
+                if (verdict != null) {
+                    if (index != null) {
+                        index.record(evaluator.getRecordedCommits());
                     }
+                    return summarize(head, currRevision, prevRevision, "range-walk", evaluator, verdict, evaluationStarted);
+                }
+                statistics.recordChangelogFallback();
+                evaluator = newEvaluator(resolved, index != null);
+            }
 
+            checkInterrupted();
+            started = System.nanoTime();
+            try (RemoteLimiter.Permit permit = RemoteLimiter.get().acquire(remote)) {
+                if (prevRevision != null && !(prevRevision instanceof AbstractGitSCMSource.SCMRevisionImpl)) {
+                    fileSystem.changesSince(new AbstractGitSCMSource.SCMRevisionImpl(head,prevRevision.toString().substring(0,40)), evaluator);
                 } else {
-                    if (allowBuildIfNotExcludedAuthor) {
-                        // if author is not ignored and changesets with at least one non-excluded author are allowed
-                        LOGGER.info(String.format(
-                                "Changeset contains non ignored author %s (%s) and allowIfNotExcluded is %s, build is required",
-                                authorEmail, log.getCommitId(), allowBuildIfNotExcludedAuthor));
-                        return true;
-                    }
+                    fileSystem.changesSince(prevRevision, evaluator);
+                }
+            } catch (IOException | RuntimeException e) {
+                // the evaluator cancels the changelog producer once a decisive commit has been read
+                if (!evaluator.isDecided()) {
+                    throw e;
                 }
+            } finally {
+                statistics.recordPhase(EvaluationStatistics.Phase.CHANGELOG, System.nanoTime() - started);
             }
-            // here if commits are made by ignored authors and allowBuildIfNotExcludedAuthor is true, in this case return false
-            // or if all commits are made by non-ignored authors and allowBuildIfNotExcludedAuthor is false, in this case return true
-            LOGGER.info(String.format("All commits in the changeset are made by %s excluded authors, build is %s",
-                    allowBuildIfNotExcludedAuthor ? "" : "Non", !allowBuildIfNotExcludedAuthor ));
 
-            return !allowBuildIfNotExcludedAuthor;
+            boolean verdict = evaluator.finish();
+            if (index != null) {
+                index.record(evaluator.getRecordedCommits());
+            }
+            return summarize(head, currRevision, prevRevision, "changelog", evaluator, verdict, evaluationStarted);
         } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Exception", e);
+            if (isInterruption(e)) {
+                // branch indexing was aborted or the evaluation timed out, stop here and leave the thread interrupted
+                Thread.currentThread().interrupt();
+                LOGGER.fine(String.format("Evaluation of %s interrupted: %s", head.getName(), e));
+                statistics.recordInterruption();
+                return null;
+            }
+            RATE_LIMITED_LOGGER.log(Level.SEVERE, "Unable to evaluate changeset: " + e, e);
+            statistics.recordError();
+            return null;
+        }
+
+    }
+
+    private static void checkInterrupted() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    /**
+     * @param failure failure of an evaluation
+     * @return true if the failure is the evaluation being interrupted, as the thread, git and remoting report it
+     */
+    static boolean isInterruption(Throwable failure) {
+        if (Thread.currentThread().isInterrupted()) {
             return true;
         }
+        // git-client and remoting wrap the interruption, and clear the flag while doing so
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException || cause instanceof InterruptedIOException
+                    || cause instanceof ClosedByInterruptException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Log the one summary line of an evaluation
+     *
+     * @param via how the changeset was read
+     * @return the verdict
+     */
+    private static boolean summarize(SCMHead head, SCMRevision currRevision, SCMRevision prevRevision, String via,
+                                     ChangelogEvaluator evaluator, boolean verdict, long startedNanos) {
+        return summarize(head, currRevision, prevRevision, via, evaluator.getReason(), evaluator.getCommits(), verdict,
+                startedNanos);
+    }
+
+    private static boolean summarize(SCMHead head, SCMRevision currRevision, SCMRevision prevRevision, String via,
+                                     String reason, int commits, boolean verdict, long startedNanos) {
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info(String.format("Evaluated head=%s range=%s..%s via=%s build=%s reason=\"%s\" commits=%d elapsedMs=%d",
+                    head.getName(), hashOf(prevRevision), hashOf(currRevision), via, verdict, reason, commits,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos)));
+        }
+        return verdict;
+    }
 
+    /**
+     * @return builder of the filesystem the changelog is read from
+     */
+    GitSCMFileSystem.Builder newFileSystemBuilder() {
+        return new GitSCMFileSystem.BuilderImpl();
+    }
+
+    private ChangelogEvaluator newEvaluator(Resolution resolved, boolean recordCommits) {
+        return new ChangelogEvaluator(resolved.matcher, allowBuildIfNotExcludedAuthor, recordCommits)
+                .limitCommits(getMaxCommits(), getBuildWhenCommitLimitReached())
+                .truncateAfter(GitSCM.MAX_CHANGELOG);
+    }
+
+    /**
+     * Ignored authors of a strategy as resolved against one version of its global list and ignore list file
+     */
+    private static final class Resolution {
+        private final AuthorList list;
+        private final MappedEmailSet emailSet;
+        private final String authors;
+        private final AuthorMatcher matcher;
+        private final String configurationKey;
+
+        private Resolution(@CheckForNull AuthorList list, @CheckForNull MappedEmailSet emailSet,
+                           @CheckForNull String authors, AuthorMatcher matcher, String configurationKey) {
+            this.list = list;
+            this.emailSet = emailSet;
+            this.authors = authors;
+            this.matcher = matcher;
+            this.configurationKey = configurationKey;
+        }
     }
 
     @Extension
@@ -166,6 +708,64 @@ public class IgnoreCommitterStrategy extends BranchBuildStrategy {
         public String getDisplayName() {
             return "Ignore Committer Strategy";
         }
+
+        public FormValidation doCheckIgnoredAuthors(@QueryParameter String value) {
+            return checkAuthors(value);
+        }
+
+        static FormValidation checkAuthors(String value) {
+            for (String author : value.split(",")) {
+                String entry = author.trim();
+                if (AuthorMatcher.isPartialRegex(entry)) {
+                    return FormValidation.error(String.format(
+                            "Incomplete pattern %s, entries are separated by commas so patterns cannot contain them",
+                            entry));
+                }
+                if (AuthorMatcher.isRegex(entry)) {
+                    String problem = AuthorMatcher.checkRegex(entry.substring(1, entry.length() - 1));
+                    if (problem != null) {
+                        return FormValidation.error(String.format("Invalid pattern %s: %s", entry, problem));
+                    }
+                }
+            }
+            return FormValidation.ok();
+        }
+
+        public FormValidation doCheckIgnoredAuthorsFile(@QueryParameter String value) {
+            if (Util.fixEmptyAndTrim(value) == null || IgnoreListFiles.directory() == null) {
+                return FormValidation.ok();
+            }
+            File file = IgnoreListFiles.resolve(value);
+            if (file == null) {
+                return FormValidation.error("The file must be in " + IgnoreListFiles.directory());
+            }
+            if (!file.isFile()) {
+                return FormValidation.warning("No such file in " + IgnoreListFiles.directory());
+            }
+            return FormValidation.ok();
+        }
+
+        public ListBoxModel doFillAuthorListIdItems() {
+            ListBoxModel items = new ListBoxModel();
+            items.add("None", "");
+            IgnoredAuthorLists configuration = IgnoredAuthorLists.get();
+            if (configuration != null) {
+                for (AuthorList list : configuration.getLists()) {
+                    if (list.getId() != null) {
+                        items.add(list.getId());
+                    }
+                }
+            }
+            return items;
+        }
+
+        public ListBoxModel doFillTimeoutVerdictItems() {
+            ListBoxModel items = new ListBoxModel();
+            for (TimeoutVerdict verdict : TimeoutVerdict.values()) {
+                items.add(verdict.getDisplayName(), verdict.name());
+            }
+            return items;
+        }
     }
 
 }
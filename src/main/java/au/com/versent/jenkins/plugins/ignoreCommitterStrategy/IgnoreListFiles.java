@@ -0,0 +1,338 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.Util;
+import hudson.init.Terminator;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Ignore list files kept in {@code JENKINS_HOME/ignore-committer-strategy/lists}
+ * <p>
+ * Each file is loaded into one {@link MappedEmailSet} shared by every strategy that refers to it. Files are loaded
+ * in the background, never on the thread looking them up: the first lookup of a file queues it and finds no set until
+ * it is loaded. The directory of the file is watched from then on, and a changed file is loaded again and swapped in
+ * once it is complete, lookups meanwhile return the previous set. Watching stops when Jenkins shuts down.
+ * <p>
+ * Compiled sets are kept in {@code JENKINS_HOME/ignore-committer-strategy/compiled-lists}, under a name that changes
+ * with each version of the file so a set still in use is never overwritten.
+ */
+@Restricted(NoExternalUse.class)
+public final class IgnoreListFiles {
+    private static final Logger LOGGER = Logger.getLogger(IgnoreListFiles.class.getName());
+    private static final RateLimitedLogger RATE_LIMITED_LOGGER = new RateLimitedLogger(LOGGER);
+    private static final IgnoreListFiles INSTANCE = new IgnoreListFiles();
+    // editors save a file in several steps, wait until its directory is quiet for this long before loading it again
+    private static final long QUIET_MILLIS = 500;
+
+    private final ConcurrentMap<File, Watched> files = new ConcurrentHashMap<>();
+    private final Set<Path> watchedDirectories = new HashSet<>();
+    private WatchService watchService;
+    private ExecutorService watcher;
+    private ExecutorService loader;
+
+    IgnoreListFiles() {
+    }
+
+    static IgnoreListFiles get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return directory of ignore list files, or null if Jenkins is not running
+     */
+    @CheckForNull
+    static File directory() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        return jenkins != null ? new File(new File(jenkins.getRootDir(), "ignore-committer-strategy"), "lists") : null;
+    }
+
+    /**
+     * @param name file name relative to the directory of ignore list files
+     * @return the file, or null if Jenkins is not running or the name points outside the directory
+     */
+    @CheckForNull
+    static File resolve(String name) {
+        File directory = directory();
+        if (directory == null || Util.fixEmptyAndTrim(name) == null) {
+            return null;
+        }
+        Path root = directory.toPath().toAbsolutePath().normalize();
+        Path file = root.resolve(name.trim()).normalize();
+        return file.startsWith(root) && !file.equals(root) ? file.toFile() : null;
+    }
+
+    /**
+     * @param name file name relative to the directory of ignore list files
+     * @return current emails of the file, or null if the file cannot be read
+     */
+    @CheckForNull
+    MappedEmailSet lookup(String name) {
+        File directory = directory();
+        File source = resolve(name);
+        if (directory == null || source == null) {
+            RATE_LIMITED_LOGGER.log(Level.WARNING, "Ignored author file " + name + " is not in " + directory);
+            return null;
+        }
+        return lookup(source, new File(directory.getParentFile(), "compiled-lists"));
+    }
+
+    /**
+     * Current emails of a file, queueing it to load and watching it on the first lookup
+     *
+     * @param source            absolute, normalized ignore list file
+     * @param compiledDirectory directory to keep the compiled set in
+     * @return current emails of the file, or null if the file cannot be read or is not loaded yet
+     */
+    @CheckForNull
+    MappedEmailSet lookup(File source, File compiledDirectory) {
+        Watched watched = files.get(source);
+        if (watched == null) {
+            watched = files.computeIfAbsent(source, file -> new Watched(file, compiledDirectory));
+        }
+        if (!watched.queued.get() && watched.queued.compareAndSet(false, true)) {
+            // watch before loading, a change made while loading is then loaded again
+            watch(source.getParentFile().toPath());
+            load(Collections.singleton(watched));
+        }
+        return watched.set;
+    }
+
+    /**
+     * @return number of emails in the files loaded at the moment
+     */
+    long getEntries() {
+        long entries = 0;
+        for (Watched watched : files.values()) {
+            MappedEmailSet set = watched.set;
+            if (set != null) {
+                entries += set.size();
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Stop watching, files already loaded keep their current set
+     */
+    synchronized void close() throws IOException {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } finally {
+                watchService = null;
+                watchedDirectories.clear();
+                watcher.shutdownNow();
+                watcher = null;
+            }
+        }
+        if (loader != null) {
+            // a file being loaded is finished, its compiled set may be mapped already
+            loader.shutdown();
+            loader = null;
+        }
+    }
+
+    /**
+     * Stop watching when Jenkins shuts down
+     */
+    @Terminator
+    public static void shutdown() throws IOException {
+        INSTANCE.close();
+    }
+
+    private synchronized void watch(Path directory) {
+        if (watchedDirectories.contains(directory)) {
+            return;
+        }
+        try {
+            if (watchService == null) {
+                WatchService service = FileSystems.getDefault().newWatchService();
+                watcher = Executors.newSingleThreadExecutor(
+                        new NamingThreadFactory(new DaemonThreadFactory(), "IgnoreCommitterStrategy.listWatcher"));
+                watcher.execute(() -> run(service));
+                watchService = service;
+            }
+            Files.createDirectories(directory);
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            watchedDirectories.add(directory);
+        } catch (IOException e) {
+            RATE_LIMITED_LOGGER.log(Level.WARNING, "Unable to watch " + directory
+                    + ", changed ignore list files in it are loaded after a restart only", e);
+        }
+    }
+
+    /**
+     * Load files on the loader thread, one after the other, so a file is never loaded twice at the same time
+     */
+    private synchronized void load(Collection<Watched> changed) {
+        if (loader == null) {
+            loader = Executors.newSingleThreadExecutor(
+                    new NamingThreadFactory(new DaemonThreadFactory(), "IgnoreCommitterStrategy.listLoader"));
+        }
+        loader.execute(() -> {
+            for (Watched watched : changed) {
+                watched.reload();
+            }
+        });
+    }
+
+    private void run(WatchService service) {
+        try {
+            while (true) {
+                Set<Watched> changed = new HashSet<>();
+                collect(service.take(), changed);
+                for (WatchKey key = service.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS); key != null;
+                     key = service.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) {
+                    collect(key, changed);
+                }
+                // load on another thread so changes keep being collected while a large file loads
+                synchronized (this) {
+                    if (watchService != service) {
+                        break;
+                    }
+                    load(changed);
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            LOGGER.fine("Stopped watching ignore list files");
+        }
+    }
+
+    private void collect(WatchKey key, Set<Watched> changed) {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // events were lost, load every file of the directory again
+                for (Watched watched : files.values()) {
+                    if (watched.source.toPath().getParent().equals(directory)) {
+                        changed.add(watched);
+                    }
+                }
+            } else {
+                Watched watched = files.get(directory.resolve((Path) event.context()).toFile());
+                if (watched != null) {
+                    changed.add(watched);
+                }
+            }
+        }
+        key.reset();
+    }
+
+    /**
+     * One ignore list file and the set currently loaded from it
+     */
+    private static final class Watched {
+        private final File source;
+        private final File compiledDirectory;
+        private final AtomicBoolean queued = new AtomicBoolean();
+        private volatile MappedEmailSet set;
+        // only read and written on the loader thread
+        private boolean loaded;
+
+        private Watched(File source, File compiledDirectory) {
+            this.source = source;
+            this.compiledDirectory = compiledDirectory;
+        }
+
+        /**
+         * Load the file again if it changed and swap the new set in, keeping the current set if it cannot be read
+         */
+        private void reload() {
+            boolean first = !loaded;
+            loaded = true;
+            if (!source.isFile()) {
+                if (set != null) {
+                    LOGGER.info("Ignored author file " + source + " was removed, ignoring the configured authors only");
+                } else if (first) {
+                    RATE_LIMITED_LOGGER.log(Level.WARNING, "Ignored author file " + source
+                            + " does not exist, ignoring the configured authors only");
+                }
+                set = null;
+                return;
+            }
+            MappedEmailSet current = set;
+            String prefix = Util.getDigestOf(source.getPath()) + "-";
+            File compiled = new File(compiledDirectory,
+                    prefix + Long.toHexString(source.lastModified()) + "-" + source.length() + ".set");
+            try {
+                long started = System.nanoTime();
+                MappedEmailSet fresh = MappedEmailSet.load(source, compiled);
+                if (current != null && current.getVersion().equals(fresh.getVersion())) {
+                    return;
+                }
+                set = fresh;
+                long elapsed = System.nanoTime() - started;
+                EvaluationStatistics.get().recordListReload(elapsed);
+                LOGGER.fine(String.format("Loaded %d ignored author emails of %s in %d ms", fresh.size(), source,
+                        TimeUnit.NANOSECONDS.toMillis(elapsed)));
+            } catch (IOException e) {
+                RATE_LIMITED_LOGGER.log(Level.WARNING, "Unable to load ignored author file " + source
+                        + (current != null ? ", keeping the previous version" : ", ignoring the configured authors only"), e);
+                return;
+            }
+
+            // earlier versions may still be mapped by evaluations in progress, where the platform allows it they
+            // are deleted anyway and disappear once unmapped
+            File[] stale = compiledDirectory.listFiles((directory, name) -> name.startsWith(prefix)
+                    && !name.equals(compiled.getName()));
+            if (stale != null) {
+                for (File file : stale) {
+                    if (!file.delete()) {
+                        LOGGER.fine("Unable to delete compiled ignore list " + file + ", deleting it later");
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.Extension;
+import jenkins.model.GlobalConfiguration;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.StaplerRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Ignored author lists shared by every {@link IgnoreCommitterStrategy} of the controller
+ * <p>
+ * Strategies refer to a list by id instead of each holding its own copy of the authors. Saving the configuration
+ * replaces the lists and their index in one step, an evaluation sees either the old lists or the new ones.
+ */
+@Extension
+public class IgnoredAuthorLists extends GlobalConfiguration {
+    private static final Logger LOGGER = Logger.getLogger(IgnoredAuthorLists.class.getName());
+
+    private List<AuthorList> lists = Collections.emptyList();
+    private transient volatile Map<String, AuthorList> listsById = Collections.emptyMap();
+
+    public IgnoredAuthorLists() {
+        load();
+        if (lists == null) {
+            lists = Collections.emptyList();
+        }
+        listsById = index(lists);
+    }
+
+    /**
+     * @return the global configuration, or null if Jenkins is not running
+     */
+    @CheckForNull
+    static IgnoredAuthorLists get() {
+        if (Jenkins.getInstanceOrNull() == null) {
+            return null;
+        }
+        return GlobalConfiguration.all().get(IgnoredAuthorLists.class);
+    }
+
+    /**
+     * @param id id of the list
+     * @return the list, or null if there is no list with the id
+     */
+    @CheckForNull
+    static AuthorList lookup(String id) {
+        IgnoredAuthorLists configuration = get();
+        return configuration != null ? configuration.listsById.get(id) : null;
+    }
+
+    public List<AuthorList> getLists() {
+        return lists;
+    }
+
+    @DataBoundSetter
+    public void setLists(List<AuthorList> lists) {
+        List<AuthorList> copy = Collections.unmodifiableList(new ArrayList<>(lists != null ? lists : Collections.emptyList()));
+        this.lists = copy;
+        // the one write evaluations read through
+        this.listsById = index(copy);
+    }
+
+    @Override
+    public boolean configure(StaplerRequest req, JSONObject json) throws FormException {
+        // bound aside and swapped in with one call, evaluations never see the lists missing while the form is read
+        setLists(req.bindJSONToList(AuthorList.class, json.opt("lists")));
+        save();
+        return true;
+    }
+
+    private static Map<String, AuthorList> index(List<AuthorList> lists) {
+        Map<String, AuthorList> index = new LinkedHashMap<>();
+        for (AuthorList list : lists) {
+            if (list.getId() == null) {
+                continue;
+            }
+            if (index.putIfAbsent(list.getId(), list) != null) {
+                LOGGER.warning(String.format("Ignored author list %s is defined more than once, using the first one",
+                        list.getId()));
+            }
+        }
+        return Collections.unmodifiableMap(index);
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Exact set of ignored author emails read from a file, kept in a memory-mapped file rather than on the heap
+ * <p>
+ * The emails of the source file are normalized like configured ones, sorted and written once to a compiled file
+ * next to the other plugin data. The compiled file holds a Bloom filter, the offset of each email and the emails as
+ * UTF-8, and is mapped read-only, so a list of hundreds of thousands of emails costs a few objects of heap.
+ * It is rebuilt when the size or modification time of the source file no longer match.
+ * <p>
+ * A lookup folds the author email in place. Most authors are not in the list and are turned away by the Bloom
+ * filter after {@value #HASHES} reads, the others are found by binary search over the sorted emails.
+ */
+final class MappedEmailSet {
+    private static final Logger LOGGER = Logger.getLogger(MappedEmailSet.class.getName());
+    private static final int MAGIC = 0x49435345;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4 + 4;
+    // about 1% false positives at ten bits per email
+    private static final int BITS_PER_EMAIL = 10;
+    private static final int HASHES = 7;
+
+    private final ByteBuffer buffer;
+    private final long sourceLength;
+    private final long sourceLastModified;
+    private final int size;
+    private final long bloomBits;
+    private final int bloomStart;
+    private final int offsetsStart;
+    private final int dataStart;
+
+    private MappedEmailSet(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a compiled email set of this version");
+        }
+        sourceLength = buffer.getLong(8);
+        sourceLastModified = buffer.getLong(16);
+        size = buffer.getInt(24);
+        int bloomWords = buffer.getInt(28);
+        bloomBits = (long) bloomWords * Long.SIZE;
+        bloomStart = HEADER_BYTES;
+        offsetsStart = bloomStart + bloomWords * Long.BYTES;
+        dataStart = offsetsStart + (size + 1) * Integer.BYTES;
+        if (size < 0 || bloomWords <= 0 || dataStart > buffer.capacity()
+                || dataStart + buffer.getInt(offsetsStart + size * Integer.BYTES) != buffer.capacity()) {
+            throw new IOException("Compiled email set is truncated");
+        }
+    }
+
+    /**
+     * Map the compiled form of a source file, compiling it first if it is missing or out of date
+     *
+     * @param source   file of ignored author emails
+     * @param compiled compiled file for the source
+     * @return the set
+     */
+    static MappedEmailSet load(File source, File compiled) throws IOException {
+        if (!source.isFile()) {
+            throw new IOException("Ignored author file " + source + " does not exist");
+        }
+        if (compiled.isFile()) {
+            try {
+                MappedEmailSet set = map(compiled);
+                if (set.sourceLength == source.length() && set.sourceLastModified == source.lastModified()) {
+                    return set;
+                }
+            } catch (IOException e) {
+                LOGGER.fine(String.format("Recompiling %s: %s", compiled, e.getMessage()));
+            }
+        }
+        compile(source, compiled);
+        return map(compiled);
+    }
+
+    private static MappedEmailSet map(File compiled) throws IOException {
+        try (FileChannel channel = FileChannel.open(compiled.toPath(), StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedEmailSet(buffer);
+        }
+    }
+
+    /**
+     * Write the compiled form of a source file, replacing the compiled file in one step
+     */
+    static void compile(File source, File compiled) throws IOException {
+        long length = source.length();
+        long lastModified = source.lastModified();
+        List<byte[]> emails = new ArrayList<>();
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(source.toPath(), StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.trim().startsWith("#")) {
+                    continue;
+                }
+                for (String entry : line.split(",")) {
+                    String email = AuthorMatcher.normalize(entry);
+                    if (email.isEmpty()) {
+                        continue;
+                    }
+                    if (email.startsWith("@") || GlobAutomaton.isGlob(email) || AuthorMatcher.isRegex(email)) {
+                        skipped++;
+                        continue;
+                    }
+                    emails.add(email.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+        if (skipped > 0) {
+            LOGGER.warning(String.format("Skipped %d entries of %s that are not plain emails, domains, globs and "
+                    + "patterns belong in the ignored authors of the job", skipped, source));
+        }
+        emails.sort(MappedEmailSet::compare);
+
+        int count = 0;
+        long dataLength = 0;
+        for (int i = 0; i < emails.size(); i++) {
+            if (i == 0 || compare(emails.get(i - 1), emails.get(i)) != 0) {
+                emails.set(count++, emails.get(i));
+                dataLength += emails.get(i).length;
+            }
+        }
+        emails.subList(count, emails.size()).clear();
+        int bloomWords = (int) Math.max(1, ((long) count * BITS_PER_EMAIL + Long.SIZE - 1) / Long.SIZE);
+        if (HEADER_BYTES + (long) bloomWords * Long.BYTES + (count + 1L) * Integer.BYTES + dataLength > Integer.MAX_VALUE) {
+            throw new IOException("Ignored author file " + source + " is too large");
+        }
+
+        long[] bloom = new long[bloomWords];
+        for (byte[] email : emails) {
+            long hash = hash(new String(email, StandardCharsets.UTF_8));
+            for (int i = 0; i < HASHES; i++) {
+                long bit = bit(hash, i, (long) bloomWords * Long.SIZE);
+                bloom[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+
+        Files.createDirectories(compiled.getParentFile().toPath());
+        File temporary = new File(compiled.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary.toPath())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(length);
+            out.writeLong(lastModified);
+            out.writeInt(count);
+            out.writeInt(bloomWords);
+            for (long word : bloom) {
+                out.writeLong(word);
+            }
+            int offset = 0;
+            for (byte[] email : emails) {
+                out.writeInt(offset);
+                offset += email.length;
+            }
+            out.writeInt(offset);
+            for (byte[] email : emails) {
+                out.write(email);
+            }
+        }
+        Files.move(temporary.toPath(), compiled.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOGGER.fine(String.format("Compiled %d ignored author emails of %s into %s", count, source, compiled));
+    }
+
+    /**
+     * @param email author email
+     * @param start start of the email, after leading whitespace
+     * @param end   end of the email, before trailing whitespace
+     * @return true if the folded email is in the set
+     */
+    boolean contains(CharSequence email, int start, int end) {
+        long hash = HASH_SEED;
+        boolean ascii = true;
+        for (int i = start; i < end; i++) {
+            char c = CaseFolding.fold(email.charAt(i));
+            ascii &= c < 0x80;
+            hash = (hash ^ c) * HASH_PRIME;
+        }
+        hash = mix(hash);
+        for (int i = 0; i < HASHES; i++) {
+            long bit = bit(hash, i, bloomBits);
+            if ((buffer.getLong(bloomStart + (int) (bit >>> 6) * Long.BYTES) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return ascii ? search(email, start, end) : search(CaseFolding.fold(email, start, end).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return number of emails in the set
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return version of the source file the set was compiled from
+     */
+    String getVersion() {
+        return sourceLength + "-" + sourceLastModified;
+    }
+
+    // an ASCII email folds to one byte per character, compared with the stored UTF-8 directly
+    private boolean search(CharSequence email, int start, int end) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entryStart = dataStart + buffer.getInt(offsetsStart + middle * Integer.BYTES);
+            int entryEnd = dataStart + buffer.getInt(offsetsStart + (middle + 1) * Integer.BYTES);
+            int cmp = 0;
+            int i = start;
+            int j = entryStart;
+            for (; i < end && j < entryEnd && cmp == 0; i++, j++) {
+                cmp = (buffer.get(j) & 0xff) - CaseFolding.fold(email.charAt(i));
+            }
+            if (cmp == 0) {
+                cmp = (entryEnd - j) - (end - i);
+            }
+            if (cmp == 0) {
+                return true;
+            }
+            if (cmp < 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return false;
+    }
+
+    private boolean search(byte[] email) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entryStart = dataStart + buffer.getInt(offsetsStart + middle * Integer.BYTES);
+            int entryEnd = dataStart + buffer.getInt(offsetsStart + (middle + 1) * Integer.BYTES);
+            int cmp = 0;
+            int i = 0;
+            int j = entryStart;
+            for (; i < email.length && j < entryEnd && cmp == 0; i++, j++) {
+                cmp = (buffer.get(j) & 0xff) - (email[i] & 0xff);
+            }
+            if (cmp == 0) {
+                cmp = (entryEnd - j) - (email.length - i);
+            }
+            if (cmp == 0) {
+                return true;
+            }
+            if (cmp < 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return false;
+    }
+
+    private static int compare(byte[] a, byte[] b) {
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            int cmp = (a[i] & 0xff) - (b[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    private static final long HASH_SEED = 0xcbf29ce484222325L;
+    private static final long HASH_PRIME = 0x100000001b3L;
+
+    // FNV-1a over the folded characters, mixed so both halves are usable as independent hashes
+    private static long hash(String folded) {
+        long hash = HASH_SEED;
+        for (int i = 0; i < folded.length(); i++) {
+            hash = (hash ^ folded.charAt(i)) * HASH_PRIME;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ hash >>> 33;
+    }
+
+    // i-th probe derived from the two halves of the hash
+    private static long bit(long hash, int i, long bits) {
+        long combined = (hash >>> 32) + i * (hash & 0xffffffffL);
+        return Long.remainderUnsigned(combined, bits);
+    }
+}
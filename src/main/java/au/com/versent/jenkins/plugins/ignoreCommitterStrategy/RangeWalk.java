@@ -0,0 +1,207 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import jenkins.plugins.git.GitSCMFileSystem;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.errors.RevWalkException;
+import org.eclipse.jgit.errors.StopWalkException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.eclipse.jgit.util.RawParseUtils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+
+/**
+ * Walks a revision range in the repository behind a {@link GitSCMFileSystem}, reading only commit headers
+ * <p>
+ * {@link GitSCMFileSystem#changesSince} is always relative to the revision the filesystem was built for, this walk
+ * lets a filesystem built for one head answer for the range of another head of the same remote.
+ * <p>
+ * Unlike the changelog it lists no changed files and decodes no messages. The author email is read from the raw
+ * commit while the walk has it loaded, and the raw commit is released straight after. Like the changelog, the walk
+ * stops where the evaluator truncates the changeset, a new head is not walked back to the first commit of the
+ * repository. The walk gives up with an
+ * {@link InterruptedIOException} at the next commit once its thread is interrupted.
+ */
+final class RangeWalk implements GitSCMFileSystem.FSFunction<Boolean> {
+    private final String currHash;
+    private final String prevHash;
+    private final ChangelogEvaluator evaluator;
+
+    RangeWalk(String currHash, @CheckForNull String prevHash, ChangelogEvaluator evaluator) {
+        this.currHash = currHash;
+        this.prevHash = prevHash;
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * @return verdict, or null if either revision is not in the repository
+     */
+    @Override
+    @CheckForNull
+    public Boolean invoke(Repository repository) throws IOException, InterruptedException {
+        try (RevWalk walk = new RevWalk(repository)) {
+            walk.setRetainBody(false);
+            return walk(walk, currHash, prevHash, evaluator, null);
+        }
+    }
+
+    /**
+     * Walk one range with a walk that may be shared by several ranges
+     *
+     * @param walk    walk that does not retain bodies, reset before the range is walked
+     * @param authors author email of every commit read so far by the walk, commits found in it are not read again,
+     *                null to read every commit
+     * @return verdict, or null if either revision is not in the repository
+     */
+    @CheckForNull
+    static Boolean walk(RevWalk walk, String currHash, @CheckForNull String prevHash, ChangelogEvaluator evaluator,
+                        @CheckForNull Map<ObjectId, String> authors) throws IOException {
+        try {
+            walk.reset();
+            walk.markStart(walk.parseCommit(ObjectId.fromString(currHash)));
+            if (prevHash != null) {
+                walk.markUninteresting(walk.parseCommit(ObjectId.fromString(prevHash)));
+            }
+            walk.setRevFilter(new AuthorFilter(evaluator, authors));
+
+            // the filter evaluates every commit and lets none through, so one call runs the whole walk
+            walk.next();
+        } catch (MissingObjectException | RevWalkException | IllegalArgumentException e) {
+            // not fetched into this repository yet, or not a commit id at all
+            return null;
+        }
+        return evaluator.finish();
+    }
+
+    /**
+     * @param raw raw commit
+     * @return author email as the changelog parser reads it, or null if the commit has no well-formed author
+     */
+    @CheckForNull
+    static String authorEmailOf(byte[] raw) {
+        CharSequence email = authorEmailOf(raw, new AsciiSequence());
+        return email != null ? email.toString() : null;
+    }
+
+    /**
+     * @param raw  raw commit
+     * @param view view to reuse for an ASCII email
+     * @return author email as the changelog parser reads it, or null if the commit has no well-formed author
+     */
+    @CheckForNull
+    private static CharSequence authorEmailOf(byte[] raw, AsciiSequence view) {
+        int author = RawParseUtils.author(raw, 0);
+        if (author < 0) {
+            return null;
+        }
+        int lineEnd = RawParseUtils.nextLF(raw, author) - 1;
+        int start = -1;
+        int end = -1;
+        for (int i = author; i < lineEnd; i++) {
+            if (raw[i] == '<' && start < 0) {
+                start = i + 1;
+            } else if (raw[i] == '>' && start >= 0 && i + 1 < lineEnd && raw[i + 1] == ' ') {
+                // the changelog parser takes everything up to the last "> " before the date
+                end = i;
+            }
+        }
+        return end >= 0 ? view.view(raw, start, end) : null;
+    }
+
+    private static CommitId[] parentsOf(RevCommit commit) {
+        CommitId[] parents = new CommitId[commit.getParentCount()];
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = CommitId.parse(commit.getParent(i).name());
+        }
+        return parents;
+    }
+
+    /**
+     * Feeds each commit to the evaluator while its raw buffer is loaded and stops the walk once decided
+     */
+    private static final class AuthorFilter extends RevFilter {
+        private final ChangelogEvaluator evaluator;
+        private final Map<ObjectId, String> authors;
+        private final AsciiSequence authorEmail = new AsciiSequence();
+
+        private AuthorFilter(ChangelogEvaluator evaluator, @CheckForNull Map<ObjectId, String> authors) {
+            this.evaluator = evaluator;
+            this.authors = authors;
+        }
+
+        @Override
+        public boolean include(RevWalk walker, RevCommit commit) throws IOException {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Range walk interrupted");
+            }
+            // changesSince does not list merge commits either
+            if (commit.getParentCount() > 1) {
+                return false;
+            }
+            evaluator.accept(commit.name(), evaluator.isRecordingCommits() ? parentsOf(commit) : null,
+                    authors != null ? rememberedAuthorEmailOf(walker, commit) : authorEmailOf(commit.getRawBuffer(), authorEmail));
+            if (evaluator.isDecided() || evaluator.isTruncated()) {
+                throw StopWalkException.INSTANCE;
+            }
+            return false;
+        }
+
+        @CheckForNull
+        private String rememberedAuthorEmailOf(RevWalk walker, RevCommit commit) throws IOException {
+            if (authors.containsKey(commit)) {
+                return authors.get(commit);
+            }
+            walker.parseBody(commit);
+            CharSequence email = authorEmailOf(commit.getRawBuffer(), authorEmail);
+            commit.disposeBody();
+            String remembered = email != null ? email.toString() : null;
+            authors.put(commit.copy(), remembered);
+            return remembered;
+        }
+
+        @Override
+        public boolean requiresCommitBody() {
+            // remembered commits are not read again, the others are read by the filter itself
+            return authors == null;
+        }
+
+        @Override
+        public RevFilter clone() {
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "AUTHOR";
+        }
+    }
+}
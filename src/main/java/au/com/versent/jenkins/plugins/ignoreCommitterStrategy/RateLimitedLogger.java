@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import jenkins.util.SystemProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Logs a message at most once per interval, repeats within the interval are counted and reported with the next one
+ * <p>
+ * Branch indexing of an organization can run the same failing evaluation for thousands of heads, this keeps a storm
+ * of identical warnings out of the system log.
+ */
+final class RateLimitedLogger {
+    private static final long DEFAULT_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(SystemProperties.getInteger(
+            IgnoreCommitterStrategy.class.getName() + ".logRepeatIntervalSeconds", 60));
+    private static final int MAX_MESSAGES = 1000;
+
+    private final Logger logger;
+    private final long intervalMillis;
+    private final LongSupplier clock;
+    private final Map<String, Window> windows = new LinkedHashMap<String, Window>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Window> eldest) {
+            return size() > MAX_MESSAGES;
+        }
+    };
+
+    RateLimitedLogger(Logger logger) {
+        this(logger, DEFAULT_INTERVAL_MILLIS, System::currentTimeMillis);
+    }
+
+    RateLimitedLogger(Logger logger, long intervalMillis, LongSupplier clock) {
+        this.logger = logger;
+        this.intervalMillis = intervalMillis;
+        this.clock = clock;
+    }
+
+    void log(Level level, String message) {
+        log(level, message, null);
+    }
+
+    /**
+     * @param level   log level
+     * @param message message, repeats of the same message at the same level are limited
+     * @param thrown  exception to log with the message, may be null
+     */
+    void log(Level level, String message, Throwable thrown) {
+        if (!logger.isLoggable(level)) {
+            return;
+        }
+        int suppressed;
+        String key = level.getName() + ' ' + message;
+        long now = clock.getAsLong();
+        synchronized (windows) {
+            Window window = windows.get(key);
+            if (window != null && now - window.started < intervalMillis) {
+                window.suppressed++;
+                return;
+            }
+            suppressed = window != null ? window.suppressed : 0;
+            windows.put(key, new Window(now));
+        }
+
+        LogRecord record = new LogRecord(level, suppressed > 0
+                ? String.format("%s (%d identical messages suppressed)", message, suppressed)
+                : message);
+        record.setLoggerName(logger.getName());
+        record.setThrown(thrown);
+        logger.log(record);
+    }
+
+    private static final class Window {
+        private final long started;
+        private int suppressed;
+
+        private Window(long started) {
+            this.started = started;
+        }
+    }
+}
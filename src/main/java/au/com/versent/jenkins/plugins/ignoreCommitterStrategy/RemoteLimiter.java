@@ -0,0 +1,166 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.plugins.git.GitSCM;
+import hudson.plugins.git.UserRemoteConfig;
+import hudson.scm.SCM;
+import jenkins.util.SystemProperties;
+import org.eclipse.jgit.transport.URIish;
+
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps how many fetches and changelogs this strategy runs against one git server at a time, controller-wide
+ * <p>
+ * Remotes are grouped by host, so an organization folder with hundreds of repositories on one server shares one
+ * limit. Waiting callers are served in arrival order, and are counted per remote.
+ */
+final class RemoteLimiter {
+    private static final int DEFAULT_PERMITS = SystemProperties.getInteger(
+            IgnoreCommitterStrategy.class.getName() + ".maxConcurrentPerRemote", 8);
+    private static final RemoteLimiter INSTANCE = new RemoteLimiter(DEFAULT_PERMITS);
+    private static final Permit UNLIMITED = () -> {
+    };
+
+    private final int permits;
+    private final ConcurrentMap<String, Remote> remotes = new ConcurrentHashMap<>();
+
+    /**
+     * @param permits most concurrent operations per remote, 0 or less for no limit
+     */
+    RemoteLimiter(int permits) {
+        this.permits = permits;
+    }
+
+    static RemoteLimiter get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return limiter key of the first remote of the SCM, or null if it has none
+     */
+    @CheckForNull
+    static String keyOf(SCM scm) {
+        if (!(scm instanceof GitSCM)) {
+            return null;
+        }
+        List<UserRemoteConfig> remotes = ((GitSCM) scm).getUserRemoteConfigs();
+        return remotes.isEmpty() || remotes.get(0).getUrl() == null ? null : keyOf(remotes.get(0).getUrl());
+    }
+
+    /**
+     * @param url remote URL in any form git accepts
+     * @return host of the remote, or the whole URL if it has no host
+     */
+    static String keyOf(String url) {
+        try {
+            String host = new URIish(url).getHost();
+            if (host != null && !host.isEmpty()) {
+                return host.toLowerCase(Locale.ENGLISH);
+            }
+        } catch (URISyntaxException e) {
+            // not a URL git understands either, limit it on its own
+        }
+        return url;
+    }
+
+    /**
+     * Wait for a turn on the remote
+     *
+     * @param key limiter key, null for an operation that is not limited
+     * @return permit to close once the operation is done
+     */
+    Permit acquire(@CheckForNull String key) throws InterruptedException {
+        if (key == null || permits <= 0) {
+            return UNLIMITED;
+        }
+        Remote remote = remotes.computeIfAbsent(key, k -> new Remote(permits));
+        Semaphore semaphore = remote.semaphore;
+        // unlike tryAcquire(), a timed tryAcquire does not overtake callers that are already waiting
+        if (!semaphore.tryAcquire(0, TimeUnit.SECONDS)) {
+            long started = System.nanoTime();
+            remote.waiting.incrementAndGet();
+            try {
+                semaphore.acquire();
+            } finally {
+                remote.waiting.decrementAndGet();
+                EvaluationStatistics.get().recordRemoteWait(System.nanoTime() - started);
+            }
+        }
+        return semaphore::release;
+    }
+
+    /**
+     * @return number of operations waiting for a turn on any remote
+     */
+    int getWaiting() {
+        int waiting = 0;
+        for (Remote remote : remotes.values()) {
+            waiting += remote.waiting.get();
+        }
+        return waiting;
+    }
+
+    /**
+     * @return number of operations waiting for a turn, by limiter key of each remote used so far
+     */
+    Map<String, Integer> getWaitingByRemote() {
+        Map<String, Integer> waiting = new TreeMap<>();
+        for (Map.Entry<String, Remote> entry : remotes.entrySet()) {
+            waiting.put(entry.getKey(), entry.getValue().waiting.get());
+        }
+        return waiting;
+    }
+
+    /**
+     * Turns on one remote and the callers waiting for them
+     */
+    private static final class Remote {
+        private final Semaphore semaphore;
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        private Remote(int permits) {
+            this.semaphore = new Semaphore(permits, true);
+        }
+    }
+
+    /**
+     * Turn on a remote, given back when closed
+     */
+    interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
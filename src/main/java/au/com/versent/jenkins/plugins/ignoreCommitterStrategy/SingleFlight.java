@@ -0,0 +1,98 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Shares one computation between callers that ask for the same key while it is running
+ * <p>
+ * The first caller computes the value on its own thread, the others wait for it. No lock is held while computing,
+ * the key is only claimed in a concurrent map. Once the computation finishes the key is released, so a later caller
+ * computes again. A computation whose caller is interrupted is not shared, the callers waiting for it compute again
+ * themselves.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+final class SingleFlight<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Compute the value of the key, or wait for the caller already computing it
+     *
+     * @param key  key of the computation
+     * @param work computation, run by the first caller only
+     * @return value computed by whichever caller ran the computation, or by this caller if that one was interrupted
+     * @throws InterruptedException if interrupted while waiting for another caller
+     */
+    V run(K key, Supplier<V> work) throws InterruptedException {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> leader;
+        while ((leader = inFlight.putIfAbsent(key, flight)) != null) {
+            EvaluationStatistics.get().recordCoalesced();
+            try {
+                return leader.get();
+            } catch (CancellationException e) {
+                // the caller computing it was interrupted, its result is no answer for this caller
+            } catch (ExecutionException e) {
+                // the computation failed for the caller that ran it, fail the same way here
+                Throwable cause = e.getCause();
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+            }
+        }
+
+        try {
+            V value = work.get();
+            if (Thread.currentThread().isInterrupted()) {
+                // release the key before waking the others, so one of them claims it and computes again
+                inFlight.remove(key, flight);
+                flight.cancel(false);
+            } else {
+                flight.complete(value);
+            }
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * @return number of computations running
+     */
+    int size() {
+        return inFlight.size();
+    }
+}
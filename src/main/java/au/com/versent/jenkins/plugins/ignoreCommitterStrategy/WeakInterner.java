@@ -0,0 +1,59 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Canonical copies of equal strings, held only as long as something else holds them
+ * <p>
+ * Unlike a {@link WeakRegistry} of strings, where the key would keep its own value alive, both the key and the
+ * value are held weakly here.
+ */
+final class WeakInterner {
+    private final Map<String, WeakReference<String>> strings = new WeakHashMap<>();
+
+    /**
+     * @param value string to intern
+     * @return the copy of the string shared by every caller
+     */
+    synchronized String intern(String value) {
+        WeakReference<String> reference = strings.get(value);
+        String interned = reference != null ? reference.get() : null;
+        if (interned == null) {
+            strings.put(value, new WeakReference<>(value));
+            interned = value;
+        }
+        return interned;
+    }
+
+    /**
+     * @return number of strings held, collected strings are dropped on the next call
+     */
+    synchronized int size() {
+        return strings.size();
+    }
+}
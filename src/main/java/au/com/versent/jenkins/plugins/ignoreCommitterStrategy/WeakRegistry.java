@@ -0,0 +1,101 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Canonical instances by key, held only as long as something else holds them
+ * <p>
+ * Values are weakly referenced, so the registry grows with the number of distinct values in use rather than with
+ * the number of lookups. Entries of collected values are purged on the next lookup. Keys are held strongly, a value
+ * that is reachable from its key is never collected, see {@link WeakInterner} for strings.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+final class WeakRegistry<K, V> {
+    private final ConcurrentMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<V> collected = new ReferenceQueue<>();
+
+    /**
+     * Look up the canonical value of a key, creating it if there is none in use
+     *
+     * @param key     key of the value
+     * @param factory creates the value, may run more than once when callers race for a new key
+     * @return the value shared by every caller of the key
+     */
+    V get(K key, Function<? super K, ? extends V> factory) {
+        purge();
+        Entry<K, V> entry = entries.get(key);
+        V value = entry != null ? entry.get() : null;
+        if (value != null) {
+            return value;
+        }
+
+        V created = factory.apply(key);
+        Entry<K, V> fresh = new Entry<>(key, created, collected);
+        while (true) {
+            Entry<K, V> existing = entries.putIfAbsent(key, fresh);
+            if (existing == null) {
+                return created;
+            }
+            V current = existing.get();
+            if (current != null) {
+                return current;
+            }
+            if (entries.replace(key, existing, fresh)) {
+                return created;
+            }
+        }
+    }
+
+    /**
+     * @return number of keys, including those whose value was collected since the last lookup
+     */
+    int size() {
+        return entries.size();
+    }
+
+    private void purge() {
+        for (Reference<? extends V> reference = collected.poll(); reference != null; reference = collected.poll()) {
+            Entry<?, ?> entry = (Entry<?, ?>) reference;
+            entries.remove(entry.key, entry);
+        }
+    }
+
+    private static final class Entry<K, V> extends WeakReference<V> {
+        private final K key;
+
+        private Entry(K key, V value, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AgentEvaluationTest {
+    private static final String MISSING = "1111111111111111111111111111111111111111";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final AgentEvaluation.Rule rule = new AgentEvaluation.Rule("jenkins@example.com", false, 0, true);
+
+    @Test
+    public void testWalkReturnsVerdictAndDecisiveAuthor() throws Exception {
+        try (Git git = Git.init().setDirectory(tmp.getRoot()).call()) {
+            RevCommit base = git.commit().setMessage("base").setAuthor("Hello", "hello@example.com").call();
+            git.commit().setMessage("feature").setAuthor("Hello", "hello@example.com").call();
+            RevCommit release = git.commit().setMessage("[task] Updated version.").setAuthor("Jenkins", "Jenkins@example.com").call();
+
+            AgentEvaluation.Result result = new AgentEvaluation.Walk(release.name(), base.name(), rule)
+                    .invoke(git.getRepository(), null);
+
+            assertFalse(result.getVerdict());
+            assertTrue(result.getReason().contains("jenkins@example.com"));
+            assertEquals(1, result.getCommits());
+        }
+    }
+
+    @Test
+    public void testWalkOfRangeNotInCloneHasNoVerdict() throws Exception {
+        try (Git git = Git.init().setDirectory(tmp.getRoot()).call()) {
+            RevCommit release = git.commit().setMessage("[task] Updated version.").setAuthor("Jenkins", "jenkins@example.com").call();
+
+            AgentEvaluation.Result result = new AgentEvaluation.Walk(release.name(), MISSING, rule)
+                    .invoke(git.getRepository(), null);
+
+            assertNull(result.getVerdict());
+        }
+    }
+
+    @Test
+    public void testWalkCanBeSentToAgent() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new AgentEvaluation.Walk(MISSING, null, rule));
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertTrue(in.readObject() instanceof AgentEvaluation.Walk);
+        }
+    }
+
+    @Test
+    public void testCloneLockIsForgottenOnceUnlocked() throws Exception {
+        AgentEvaluation.CloneLock lock = AgentEvaluation.lock("agent /clone");
+        assertSame(lock, AgentEvaluation.lock("agent /clone"));
+        AgentEvaluation.unlock("agent /clone", lock);
+        assertEquals(1, AgentEvaluation.getLocks());
+        AgentEvaluation.unlock("agent /clone", lock);
+        assertEquals(0, AgentEvaluation.getLocks());
+        AgentEvaluation.CloneLock again = AgentEvaluation.lock("agent /clone");
+        assertNotSame(lock, again);
+        AgentEvaluation.unlock("agent /clone", again);
+        assertEquals(0, AgentEvaluation.getLocks());
+    }
+
+    @Test
+    public void testInterruptedWaiterGivesUpCloneLock() throws Exception {
+        AgentEvaluation.CloneLock lock = AgentEvaluation.lock("agent /clone");
+        CountDownLatch waiting = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            waiting.countDown();
+            try {
+                AgentEvaluation.unlock("agent /clone", AgentEvaluation.lock("agent /clone"));
+            } catch (InterruptedException e) {
+                // expected
+            }
+        });
+        waiter.start();
+        waiting.await();
+        waiter.interrupt();
+        waiter.join();
+
+        AgentEvaluation.unlock("agent /clone", lock);
+        assertEquals(0, AgentEvaluation.getLocks());
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AuthorMatcherTest {
+
+    @Test
+    public void testMatchesIgnoresCaseAndWhitespace() {
+        AuthorMatcher matcher = AuthorMatcher.compile(" Jenkins@Example.com ,jenkins-ci@example.com");
+
+        assertTrue(matcher.matches("jenkins@example.com"));
+        assertTrue(matcher.matches("  JENKINS-CI@example.com"));
+        assertFalse(matcher.matches("hello@example.com"));
+    }
+
+    @Test
+    public void testCompileSkipsEmptyEntries() {
+        AuthorMatcher matcher = AuthorMatcher.compile("jenkins@example.com,, ,");
+
+        assertEquals(1, matcher.size());
+        assertFalse(matcher.matches(""));
+    }
+
+    @Test
+    public void testCompileAcceptsNull() {
+        AuthorMatcher matcher = AuthorMatcher.compile(null);
+
+        assertEquals(0, matcher.size());
+        assertFalse(matcher.matches("jenkins@example.com"));
+    }
+
+    @Test
+    public void testMatchesGlobs() {
+        AuthorMatcher matcher = AuthorMatcher.compile("*[bot]@users.noreply.github.com, renovate-*@corp,ci-?@example.com");
+
+        assertTrue(matcher.matches("dependabot[bot]@users.noreply.github.com"));
+        assertTrue(matcher.matches("Renovate-Team@Corp"));
+        assertTrue(matcher.matches("ci-1@example.com"));
+        assertFalse(matcher.matches("ci-12@example.com"));
+        assertFalse(matcher.matches("dependabot@users.noreply.github.com"));
+        assertFalse(matcher.matches("renovate-team@corp.example"));
+    }
+
+    @Test
+    public void testMatchesRegexes() {
+        AuthorMatcher matcher = AuthorMatcher.compile("/team-[a-z]+-svc@example\\.com/,/[0-9]+@ci/,jenkins@example.com");
+
+        assertTrue(matcher.matches("team-payments-svc@example.com"));
+        assertTrue(matcher.matches("TEAM-Search-svc@example.com"));
+        assertTrue(matcher.matches("42@ci"));
+        assertTrue(matcher.matches("jenkins@example.com"));
+        assertFalse(matcher.matches("team-svc@example.com"));
+        assertFalse(matcher.matches("team-payments-svc@exampleacom"));
+        assertEquals(3, matcher.size());
+    }
+
+    @Test
+    public void testCompileSkipsInvalidRegexes() {
+        AuthorMatcher matcher = AuthorMatcher.compile("/[a-z/,jenkins@example.com");
+
+        assertEquals(1, matcher.size());
+        assertTrue(matcher.matches("jenkins@example.com"));
+    }
+
+    @Test
+    public void testCompileSkipsRegexesSplitAtCommas() {
+        // a comma ends an entry even inside a pattern, neither half is taken as an email
+        AuthorMatcher matcher = AuthorMatcher.compile("/a{1,3}@x/,jenkins@example.com");
+
+        assertEquals(1, matcher.size());
+        assertTrue(matcher.matches("jenkins@example.com"));
+        assertFalse(matcher.matches("aa@x"));
+        assertFalse(matcher.matches("/a{1"));
+        assertTrue(AuthorMatcher.isPartialRegex("/a{1"));
+        assertTrue(AuthorMatcher.isPartialRegex("3}@x/"));
+        assertTrue(AuthorMatcher.isPartialRegex("/"));
+        assertFalse(AuthorMatcher.isPartialRegex("/a{1}@x/"));
+        assertFalse(AuthorMatcher.isPartialRegex("jenkins@example.com"));
+    }
+
+    @Test
+    public void testGlobsBeyondStateLimitStillMatch() {
+        AuthorMatcher matcher = AuthorMatcher.compile("a*b*c*d@x,*e*f*g@x,*h?i*@y", 2);
+
+        assertTrue(matcher.matches("a1b2c3d@x"));
+        assertTrue(matcher.matches("zefg@x"));
+        assertTrue(matcher.matches("h.i@y"));
+        assertFalse(matcher.matches("abc@x"));
+    }
+
+    @Test
+    public void testMatchesDomainsAndSubdomains() {
+        AuthorMatcher matcher = AuthorMatcher.compile("@ci.corp.example, @Automation.example,@");
+
+        assertTrue(matcher.matches("build@ci.corp.example"));
+        assertTrue(matcher.matches("build@eu.ci.corp.example"));
+        assertTrue(matcher.matches("renovate@AUTOMATION.example"));
+        assertFalse(matcher.matches("build@corp.example"));
+        assertFalse(matcher.matches("build@xci.corp.example"));
+        assertEquals(2, matcher.size());
+    }
+
+    @Test
+    public void testMatchingDoesNotDependOnDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            // the Turkish locale lower cases I to a dotless i
+            Locale.setDefault(new Locale("tr", "TR"));
+            AuthorMatcher matcher = AuthorMatcher.compile("CI@example.com,@INFRA.example,BUILD-*@example.com");
+
+            assertTrue(matcher.matches("ci@EXAMPLE.com"));
+            assertTrue(matcher.matches("deploy@infra.EXAMPLE"));
+            assertTrue(matcher.matches("build-42@example.com"));
+            assertEquals("ci@example.com", AuthorMatcher.normalize(" CI@Example.com "));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    public void testMatchesBytesInPlace() {
+        AuthorMatcher matcher = AuthorMatcher.compile("jenkins@example.com,@ci.example,*[bot]@example.com");
+        byte[] line = "author Jenkins < Jenkins@Example.COM > deploy@eu.CI.example renovate[bot]@example.com"
+                .getBytes(StandardCharsets.UTF_8);
+        AsciiSequence view = new AsciiSequence();
+
+        assertTrue(matcher.matches(view.view(line, 16, 37)));
+        assertTrue(matcher.matches(view.view(line, 39, 59)));
+        assertTrue(matcher.matches(view.view(line, 60, line.length)));
+        assertFalse(matcher.matches(view.view(line, 0, 14)));
+    }
+
+    @Test
+    public void testMatchesNonAsciiEmails() {
+        AuthorMatcher matcher = AuthorMatcher.compile("J\u00c9R\u00d4ME@example.com");
+        AsciiSequence view = new AsciiSequence();
+        byte[] email = "j\u00e9r\u00f4me@example.com".getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(matcher.matches(view.view(email, 0, email.length)));
+    }
+
+    @Test
+    public void testEquivalentListsShareMatcher() {
+        assertEquals("/Bot-\\d+@corp/,@ci.example,jenkins@example.com",
+                AuthorMatcher.canonical(" Jenkins@Example.com,@CI.example ,, /Bot-\\d+@corp/,jenkins@example.com"));
+
+        AuthorMatcher matcher = AuthorMatcher.shared("jenkins@example.com, @ci.example");
+        assertSame(matcher, AuthorMatcher.shared("@CI.example,JENKINS@example.com"));
+        assertNotSame(matcher, AuthorMatcher.shared("jenkins@example.com"));
+        assertTrue(matcher.matches("deploy@build.ci.example"));
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BatchEvaluationTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final BatchEvaluation batch = new BatchEvaluation();
+    private final BatchEvaluation.Pending main = new BatchEvaluation.Pending("main", "aaaa", "bbbb");
+    private final BatchEvaluation.Pending feature = new BatchEvaluation.Pending("feature", null, "cccc");
+    private final List<BatchEvaluation.Pending> queue = Arrays.asList(main, feature);
+
+    @Test
+    public void testPendingRangesOfChangedBranchesOnly() throws Exception {
+        try (Git git = Git.init().setDirectory(tmp.getRoot()).call()) {
+            RevCommit base = git.commit().setMessage("base").setAuthor("Hello", "hello@example.com").call();
+            RevCommit release = git.commit().setMessage("release").setAuthor("Jenkins", "jenkins@example.com").call();
+            Repository repository = git.getRepository();
+            fetched(repository, "main", release);
+            fetched(repository, "stale", base);
+
+            Map<String, String> builtRevisions = new HashMap<>();
+            builtRevisions.put("main", base.name());
+            builtRevisions.put("stale", base.name());
+            builtRevisions.put("deleted", base.name());
+            List<BatchEvaluation.Pending> pending = BatchEvaluation.pendingRanges(repository, "origin", builtRevisions);
+            assertEquals(1, pending.size());
+
+            BatchEvaluation.Range range = range(true);
+            batch.start("source", new ArrayList<>(pending), () -> {
+                pending.get(0).complete(range);
+                return null;
+            }, task -> false);
+            assertSame(range, batch.await("main", base.name(), release.name()));
+            // unchanged and deleted branches are not asked about
+            assertNull(batch.await("stale", base.name(), base.name()));
+            assertNull(batch.await("deleted", base.name(), null));
+        }
+    }
+
+    @Test
+    public void testAwaitReturnsVerdictOfSameRangeOnly() throws Exception {
+        BatchEvaluation.Range range = range(false);
+        batch.start("source", queue, () -> {
+            main.complete(range);
+            return null;
+        }, task -> false);
+
+        assertSame(range, batch.await("main", "aaaa", "bbbb"));
+        // the branch moved on since it was evaluated ahead
+        assertNull(batch.await("main", "aaaa", "dddd"));
+        assertNull(batch.await("main", null, "bbbb"));
+        assertNull(batch.await("release", "aaaa", "bbbb"));
+        // walked but without a verdict
+        assertNull(batch.await("feature", null, "cccc"));
+    }
+
+    @Test
+    public void testQueuedTaskRunsOnAwaitingThread() throws Exception {
+        List<Runnable> queued = new ArrayList<>();
+        AtomicReference<Thread> walker = new AtomicReference<>();
+        BatchEvaluation.Range range = range(true);
+        batch.start("source", queue, () -> {
+            walker.set(Thread.currentThread());
+            main.complete(range);
+            return null;
+        }, queued::add);
+        assertEquals(1, queued.size());
+        assertNull(walker.get());
+
+        assertSame(range, batch.await("main", "aaaa", "bbbb"));
+        assertSame(Thread.currentThread(), walker.get());
+        // the prefetch thread getting to it later does not walk again
+        walker.set(null);
+        queued.get(0).run();
+        assertNull(walker.get());
+    }
+
+    @Test
+    public void testFailedWalkLeavesRangesToSingleEvaluation() throws Exception {
+        batch.start("source", queue, () -> {
+            throw new IllegalStateException("broken repository");
+        }, task -> false);
+
+        assertNull(batch.await("main", "aaaa", "bbbb"));
+        assertNull(batch.await("feature", null, "cccc"));
+    }
+
+    @Test
+    public void testCancelBeforeTaskStarted() throws Exception {
+        List<Runnable> queued = new ArrayList<>();
+        AtomicReference<Thread> walker = new AtomicReference<>();
+        batch.start("source", queue, () -> {
+            walker.set(Thread.currentThread());
+            return null;
+        }, queued::add);
+
+        batch.cancel();
+        assertTrue(batch.isCancelled());
+        assertNull(batch.await("main", "aaaa", "bbbb"));
+        assertNull(batch.await("feature", null, "cccc"));
+        queued.get(0).run();
+        assertNull(walker.get());
+    }
+
+    @Test
+    public void testCancelInterruptsRunningWalk() throws Exception {
+        CountDownLatch walking = new CountDownLatch(1);
+        CountDownLatch never = new CountDownLatch(1);
+        AtomicReference<Boolean> interrupted = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        batch.start("source", queue, () -> {
+            walking.countDown();
+            try {
+                never.await();
+                interrupted.set(false);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+                throw e;
+            }
+            return null;
+        }, task -> {
+            Thread thread = new Thread(task);
+            threads.add(thread);
+            thread.start();
+            return true;
+        });
+        walking.await();
+
+        batch.cancel();
+        assertNull(batch.await("main", "aaaa", "bbbb"));
+        threads.get(0).join();
+        assertTrue(interrupted.get());
+        assertEquals(1, never.getCount());
+    }
+
+    @Test
+    public void testHelperNobodyStartedRunsOnFinishingThread() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        AtomicReference<Thread> worker = new AtomicReference<>();
+        BatchEvaluation.Helper helper = new BatchEvaluation.Helper(() -> {
+            runs.incrementAndGet();
+            worker.set(Thread.currentThread());
+        });
+
+        // the prefetch pool is busy with other sources, waiting for it could deadlock
+        helper.finish();
+        assertSame(Thread.currentThread(), worker.get());
+        // a prefetch thread getting to it afterwards does nothing
+        helper.run();
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testHelperStartedElsewhereIsWaitedFor() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BatchEvaluation.Helper helper = new BatchEvaluation.Helper(() -> {
+            runs.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread thread = new Thread(helper);
+        thread.start();
+        started.await();
+
+        Thread finisher = new Thread(() -> {
+            try {
+                helper.finish();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        finisher.start();
+        finisher.join(200);
+        assertTrue(finisher.isAlive());
+
+        release.countDown();
+        finisher.join();
+        thread.join();
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testInterruptedHelperStopsWorker() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicReference<Boolean> interrupted = new AtomicReference<>();
+        BatchEvaluation.Helper helper = new BatchEvaluation.Helper(() -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+                interrupted.set(false);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        Thread thread = new Thread(helper);
+        thread.start();
+        started.await();
+
+        helper.interrupt();
+        helper.finish();
+        assertTrue(interrupted.get());
+    }
+
+    private static BatchEvaluation.Range range(boolean verdict) {
+        return new BatchEvaluation.Range(verdict, new ChangelogEvaluator(AuthorMatcher.compile("jenkins@example.com"),
+                false));
+    }
+
+    private static void fetched(Repository repository, String branch, RevCommit commit) throws Exception {
+        RefUpdate update = repository.updateRef("refs/remotes/origin/" + branch);
+        update.setNewObjectId(commit);
+        update.update();
+    }
+}
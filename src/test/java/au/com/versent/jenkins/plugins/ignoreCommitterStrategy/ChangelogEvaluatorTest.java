@@ -0,0 +1,220 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import hudson.plugins.git.GitChangeSet;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ChangelogEvaluatorTest {
+    private final AuthorMatcher matcher = AuthorMatcher.compile("jenkins@example.com");
+
+    @Test
+    public void testVerdictIsReachedBeforeChangelogEnds() throws Exception {
+        ChangelogEvaluator evaluator = new ChangelogEvaluator(matcher, false);
+
+        write(evaluator, getCommit("1111111111111111111111111111111111111111", "hello@example.com"));
+        write(evaluator, getCommit("2222222222222222222222222222222222222222", "jenkins@example.com"));
+        assertFalse(evaluator.isDecided());
+
+        // the ignored commit is only complete once the next one starts
+        write(evaluator, getCommit("3333333333333333333333333333333333333333", "hello@example.com"));
+        assertTrue(evaluator.isDecided());
+        assertFalse(evaluator.finish());
+    }
+
+    @Test(expected = ChangelogEvaluator.VerdictReachedException.class)
+    public void testWritesAfterVerdictCancelProducer() throws Exception {
+        ChangelogEvaluator evaluator = new ChangelogEvaluator(matcher, true);
+
+        write(evaluator, getCommit("1111111111111111111111111111111111111111", "hello@example.com"));
+        write(evaluator, getCommit("2222222222222222222222222222222222222222", "hello@example.com"));
+        write(evaluator, getCommit("3333333333333333333333333333333333333333", "hello@example.com"));
+    }
+
+    @Test
+    public void testWritesFromInterruptedThreadFail() throws Exception {
+        ChangelogEvaluator evaluator = new ChangelogEvaluator(matcher, false);
+
+        write(evaluator, getCommit("1111111111111111111111111111111111111111", "hello@example.com"));
+        Thread.currentThread().interrupt();
+        try {
+            write(evaluator, getCommit("2222222222222222222222222222222222222222", "hello@example.com"));
+            fail("write did not fail");
+        } catch (InterruptedIOException e) {
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void testLastCommitIsEvaluatedOnFinish() throws Exception {
+        ChangelogEvaluator evaluator = new ChangelogEvaluator(matcher, false);
+
+        write(evaluator, getCommit("1111111111111111111111111111111111111111", "jenkins@example.com"));
+
+        assertFalse(evaluator.isDecided());
+        assertFalse(evaluator.finish());
+    }
+
+    @Test
+    public void testEmptyChangelogUsesDefaultVerdict() {
+        assertTrue(new ChangelogEvaluator(matcher, false).finish());
+        assertFalse(new ChangelogEvaluator(matcher, true).finish());
+    }
+
+    @Test
+    public void testCommitLimitDecidesLongChangeset() throws Exception {
+        ChangelogEvaluator evaluator = new ChangelogEvaluator(matcher, true).limitCommits(2, false);
+
+        write(evaluator, getCommit("1111111111111111111111111111111111111111", "jenkins@example.com"));
+        write(evaluator, getCommit("2222222222222222222222222222222222222222", "jenkins@example.com"));
+        write(evaluator, getCommit("3333333333333333333333333333333333333333", "jenkins@example.com"));
+        assertFalse(evaluator.isDecided());
+
+        write(evaluator, getCommit("4444444444444444444444444444444444444444", "hello@example.com"));
+        assertTrue(evaluator.isDecided());
+        assertFalse(evaluator.finish());
+    }
+
+    @Test
+    public void testChangesetWithinCommitLimitIsNotAffected() throws Exception {
+        ChangelogEvaluator evaluator = new ChangelogEvaluator(matcher, true).limitCommits(2, true);
+
+        write(evaluator, getCommit("1111111111111111111111111111111111111111", "jenkins@example.com"));
+        write(evaluator, getCommit("2222222222222222222222222222222222222222", "jenkins@example.com"));
+
+        assertFalse(evaluator.finish());
+    }
+
+    @Test
+    public void testCommitsPastTruncationAreNotInspected() throws Exception {
+        ChangelogEvaluator evaluator = new ChangelogEvaluator(matcher, true).truncateAfter(2);
+
+        evaluator.accept("1111111111111111111111111111111111111111", null, "jenkins@example.com");
+        assertFalse(evaluator.isTruncated());
+        evaluator.accept("2222222222222222222222222222222222222222", null, "jenkins@example.com");
+        assertTrue(evaluator.isTruncated());
+        // the changelog of the git plugin would not list this commit at all
+        evaluator.accept("3333333333333333333333333333333333333333", null, "hello@example.com");
+
+        assertEquals(2, evaluator.getCommits());
+        assertFalse(evaluator.finish());
+    }
+
+    @Test
+    public void testLastAuthorLineWins() throws Exception {
+        ChangelogEvaluator evaluator = new ChangelogEvaluator(matcher, false);
+
+        write(evaluator, "commit 1111111111111111111111111111111111111111\n"
+                + "author Jenkins <jenkins@example.com> 1363879004 +0100\n"
+                + "author John Galt <hello@example.com> 1363879004 +0100\n");
+
+        assertTrue(evaluator.finish());
+    }
+
+    @Test
+    public void testAuthorPastLineLimitIsIgnored() throws Exception {
+        ChangelogEvaluator evaluator = new ChangelogEvaluator(matcher, false);
+
+        StringBuilder commit = new StringBuilder("commit 1111111111111111111111111111111111111111\n");
+        for (int i = 1; i < 1000; i++) {
+            commit.append("    message line\n");
+        }
+        commit.append("author Jenkins <jenkins@example.com> 1363879004 +0100\n");
+        write(evaluator, commit.toString());
+
+        // no author within the first 1000 lines, so the commit cannot be parsed
+        assertTrue(evaluator.finish());
+    }
+
+    @Test
+    public void testAuthorIsReadLikeGitChangeSet() throws Exception {
+        String[] authorLines = {
+                "author Jenkins <jenkins@example.com> 1363879004 +0100",
+                "author Jenkins<jenkins@example.com> 1363879004 +0100\r",
+                "author Jenkins <jenkins@example.com> <x> 1363879004 +0100",
+                "author Jenkins <jenkins@example.com>",
+                "author Jenkins jenkins@example.com 1363879004 +0100",
+                "author <jenkins@example.com> ",
+                "author J\u00e9 <j\u00e9@example.com> 1363879004 +0100",
+                "author Jenkins <jenkins\u2028@example.com> 1363879004 +0100",
+                "Author Jenkins <jenkins@example.com> 1363879004 +0100",
+                "    author Jenkins <jenkins@example.com> 1363879004 +0100",
+        };
+        for (String authorLine : authorLines) {
+            String changelog = "commit 1111111111111111111111111111111111111111\n" + authorLine + "\n\n    [task] Updated version.\n";
+            String expected = new GitChangeSet(readLines(changelog), true).getAuthorEmail();
+
+            ChangelogEvaluator evaluator = new ChangelogEvaluator(AuthorMatcher.compile(expected), false);
+            write(evaluator, changelog);
+            // an ignored author skips the build, an author that cannot be parsed builds
+            assertEquals(authorLine, expected == null, evaluator.finish());
+        }
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testDateThatGitChangeSetCannotParseFailsEvaluation() throws Exception {
+        ChangelogEvaluator evaluator = new ChangelogEvaluator(matcher, false);
+
+        write(evaluator, "commit 1111111111111111111111111111111111111111\n"
+                + "author Jenkins <jenkins@example.com> 99999999999999999999 +0100\n");
+        evaluator.finish();
+    }
+
+    private List<String> readLines(String changelog) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(changelog.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private void write(ChangelogEvaluator evaluator, String commit) throws IOException {
+        evaluator.write(commit.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String getCommit(String commitId, String authorEmail) {
+        return String.format("commit %s%n", commitId)
+                + String.format("author John Galt <%s> 1363879004 +0100%n", authorEmail)
+                + String.format("%n    [task] Updated version.%n");
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CommitAuthorIndexTest {
+    private static final String BASE = "0000000000000000000000000000000000000000";
+    private static final String FIRST = "1111111111111111111111111111111111111111";
+    private static final String SECOND = "2222222222222222222222222222222222222222";
+    private static final String MERGE = "3333333333333333333333333333333333333333";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final AuthorMatcher matcher = AuthorMatcher.compile("jenkins@example.com");
+
+    @Test
+    public void testResolvesLinearRangeAfterReload() throws Exception {
+        File file = new File(tmp.getRoot(), "commit-authors.idx");
+        new CommitAuthorIndex(file, 10).record(Arrays.asList(
+                commit(SECOND, "jenkins@example.com", FIRST),
+                commit(FIRST, "hello@example.com", BASE)));
+
+        CommitAuthorIndex index = new CommitAuthorIndex(file, 10);
+        assertEquals(2, index.size());
+        assertFalse(index.resolve(SECOND, BASE, new ChangelogEvaluator(matcher, false)));
+        assertTrue(index.resolve(SECOND, BASE, new ChangelogEvaluator(matcher, true)));
+        assertFalse(index.resolve(SECOND, FIRST, new ChangelogEvaluator(matcher, true)));
+    }
+
+    @Test
+    public void testUnknownOrMergeCommitsAreNotResolved() throws Exception {
+        CommitAuthorIndex index = new CommitAuthorIndex(new File(tmp.getRoot(), "commit-authors.idx"), 10);
+        index.record(Arrays.asList(
+                commit(MERGE, "hello@example.com", SECOND, FIRST),
+                commit(FIRST, "hello@example.com", BASE)));
+
+        assertNull(index.resolve(SECOND, BASE, new ChangelogEvaluator(matcher, false)));
+        assertNull(index.resolve(MERGE, BASE, new ChangelogEvaluator(matcher, false)));
+        assertNull(index.resolve(FIRST, null, new ChangelogEvaluator(matcher, false)));
+    }
+
+    @Test
+    public void testTruncatedRecordIsDropped() throws Exception {
+        File file = new File(tmp.getRoot(), "commit-authors.idx");
+        new CommitAuthorIndex(file, 10).record(Arrays.asList(
+                commit(SECOND, "jenkins@example.com", FIRST),
+                commit(FIRST, "hello@example.com", BASE)));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        CommitAuthorIndex index = new CommitAuthorIndex(file, 10);
+        assertEquals(1, index.size());
+        index.record(Arrays.asList(commit(FIRST, "hello@example.com", BASE)));
+
+        assertEquals(2, new CommitAuthorIndex(file, 10).size());
+    }
+
+    @Test
+    public void testCommitsRecordedWhileInterruptedAreWrittenLater() throws Exception {
+        File file = new File(tmp.getRoot(), "commit-authors.idx");
+        CommitAuthorIndex index = new CommitAuthorIndex(file, 10);
+        Thread.currentThread().interrupt();
+        try {
+            index.record(Arrays.asList(commit(FIRST, "hello@example.com", BASE)));
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+        assertEquals(1, index.size());
+        assertFalse(file.exists());
+
+        index.record(Arrays.asList(commit(SECOND, "jenkins@example.com", FIRST)));
+        assertEquals(2, new CommitAuthorIndex(file, 10).size());
+    }
+
+    @Test
+    public void testIndexIsCompactedToSizeCap() throws Exception {
+        File file = new File(tmp.getRoot(), "commit-authors.idx");
+        CommitAuthorIndex index = new CommitAuthorIndex(file, 2);
+        String parent = BASE;
+        for (char c = '1'; c <= '5'; c++) {
+            String id = new String(new char[40]).replace('\0', c);
+            index.record(Arrays.asList(commit(id, "hello@example.com", parent)));
+            parent = id;
+        }
+
+        // header plus two records of id, parent count, parent, email length and email
+        assertEquals(8 + 2 * (20 + 1 + 20 + 2 + "hello@example.com".length()), file.length());
+        assertEquals(2, new CommitAuthorIndex(file, 2).size());
+    }
+
+    private CommitAuthorIndex.Commit commit(String id, String authorEmail, String... parents) {
+        CommitId[] parentIds = new CommitId[parents.length];
+        for (int i = 0; i < parents.length; i++) {
+            parentIds[i] = CommitId.parse(parents[i]);
+        }
+        return new CommitAuthorIndex.Commit(CommitId.parse(id), parentIds, authorEmail);
+    }
+}
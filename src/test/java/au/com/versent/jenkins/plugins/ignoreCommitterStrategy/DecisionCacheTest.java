@@ -0,0 +1,82 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DecisionCacheTest {
+
+    @Test
+    public void testLookupCountsHitsAndMisses() {
+        DecisionCache cache = new DecisionCache(10, 60000);
+        EvaluationKey key = key("master", "false|jenkins@example.com");
+
+        assertNull(cache.lookup(key));
+        cache.store(key, false);
+        assertFalse(cache.lookup(key));
+
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testChangedConfigurationMisses() {
+        DecisionCache cache = new DecisionCache(10, 60000);
+        cache.store(key("master", "false|jenkins@example.com"), false);
+
+        assertNull(cache.lookup(key("master", "true|jenkins@example.com")));
+        assertNull(cache.lookup(key("master", "false|jenkins-ci@example.com")));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        DecisionCache cache = new DecisionCache(2, 60000);
+        cache.store(key("a", ""), true);
+        cache.store(key("b", ""), true);
+        cache.lookup(key("a", ""));
+        cache.store(key("c", ""), true);
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.lookup(key("a", "")));
+        assertNull(cache.lookup(key("b", "")));
+    }
+
+    @Test
+    public void testExpiredEntryMisses() {
+        DecisionCache cache = new DecisionCache(10, -1);
+        cache.store(key("master", ""), true);
+
+        assertNull(cache.lookup(key("master", "")));
+        assertEquals(0, cache.size());
+    }
+
+    private EvaluationKey key(String head, String configuration) {
+        return new EvaluationKey("source", head, "111", "222", configuration);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DomainTrieTest {
+
+    @Test
+    public void testMatchesWholeLabelsOnly() {
+        DomainTrie trie = new DomainTrie();
+        trie.add("corp.example");
+
+        assertTrue(trie.matches("a@corp.example"));
+        assertTrue(trie.matches("a@ci.corp.example"));
+        assertFalse(trie.matches("a@mycorp.example"));
+        assertFalse(trie.matches("a@example"));
+        assertFalse(trie.matches("corp.example"));
+    }
+
+    @Test
+    public void testLastAtSignSeparatesDomain() {
+        DomainTrie trie = new DomainTrie();
+        trie.add("example");
+
+        assertTrue(trie.matches("\"a@b\"@example"));
+        assertFalse(trie.matches("a@example@other"));
+    }
+
+    @Test
+    public void testRejectsEmptyLabels() {
+        DomainTrie trie = new DomainTrie();
+
+        assertFalse(trie.add(""));
+        assertFalse(trie.add("ci..example"));
+        assertFalse(trie.add(".example"));
+        assertFalse(trie.matches("a@"));
+    }
+
+    @Test
+    public void testManyDomains() {
+        DomainTrie trie = new DomainTrie();
+        for (int i = 0; i < 20000; i++) {
+            trie.add("team" + i + ".corp.example");
+        }
+        trie.add("team1.corp.example");
+
+        assertEquals(20000, trie.size());
+        assertTrue(trie.matches("ci@team19999.corp.example"));
+        assertTrue(trie.matches("ci@eu.team0.corp.example"));
+        assertFalse(trie.matches("ci@team20000.corp.example"));
+        assertFalse(trie.matches("ci@corp.example"));
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class EvaluationExecutorTest {
+
+    @Test
+    public void testSaturatedPoolNeverRunsOnCaller() throws Exception {
+        ThreadPoolExecutor executor = EvaluationExecutor.newEvaluationExecutor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> queuedThread = new AtomicReference<>();
+        try {
+            EvaluationExecutor.Evaluation running = EvaluationExecutor.submit(executor, () -> {
+                release.await();
+                return true;
+            });
+            EvaluationExecutor.Evaluation queued = EvaluationExecutor.submit(executor, () -> {
+                queuedThread.set(Thread.currentThread());
+                return false;
+            });
+            try {
+                EvaluationExecutor.submit(executor, () -> true);
+                fail("Evaluation beyond the threads and the queue was accepted");
+            } catch (RejectedExecutionException e) {
+                // applied as a timeout by the caller
+            }
+
+            // the queued evaluation is still waited for with the time budget only
+            long started = System.nanoTime();
+            try {
+                queued.get(100, TimeUnit.MILLISECONDS);
+                fail("Queued evaluation finished while every thread was busy");
+            } catch (TimeoutException e) {
+                assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(5));
+            }
+            assertFalse(queued.isDone());
+
+            release.countDown();
+            assertTrue(running.get(5, TimeUnit.SECONDS));
+            assertFalse(queued.get(5, TimeUnit.SECONDS));
+            assertNotSame(Thread.currentThread(), queuedThread.get());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCancelledQueuedEvaluationNeverRuns() throws Exception {
+        ThreadPoolExecutor executor = EvaluationExecutor.newEvaluationExecutor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Boolean> ran = new AtomicReference<>(false);
+        try {
+            EvaluationExecutor.submit(executor, () -> {
+                release.await();
+                return true;
+            });
+            EvaluationExecutor.Evaluation queued = EvaluationExecutor.submit(executor, () -> {
+                ran.set(true);
+                return true;
+            });
+            queued.cancel(true);
+            release.countDown();
+
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(false, ran.get());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+}
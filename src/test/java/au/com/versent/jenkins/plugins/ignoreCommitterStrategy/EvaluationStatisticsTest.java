@@ -0,0 +1,87 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.Timer;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EvaluationStatisticsTest {
+    private static final String PREFIX = "ignore-committer-strategy.";
+
+    private final Map<String, Metric> metrics = EvaluationStatistics.get().getMetrics();
+
+    @Test
+    public void testMetricNames() {
+        // dashboards and alerts refer to these names, renaming one breaks them
+        assertEquals(new TreeSet<>(Arrays.asList(
+                "phase.evaluation", "phase.index", "phase.scm-build", "phase.agent", "phase.file-system-build",
+                "phase.batch", "phase.range-walk", "phase.changelog", "phase.parse", "phase.match",
+                "verdicts.build", "verdicts.skip", "errors", "interruptions",
+                "fallbacks.timeout", "fallbacks.commit-limit", "fallbacks.changelog", "coalesced",
+                "remote.wait", "remote.queue-depth", "remote.queue-depth-by-host", "lists.reload", "lists.entries",
+                "cache.hits", "cache.misses", "cache.size")), withoutPrefix(metrics));
+    }
+
+    @Test
+    public void testMetricTypes() {
+        for (EvaluationStatistics.Phase phase : EvaluationStatistics.Phase.values()) {
+            String name = phase.name().toLowerCase(Locale.ENGLISH).replace('_', '-');
+            assertTrue(name, metrics.get(PREFIX + "phase." + name) instanceof Timer);
+        }
+        assertTrue(metrics.get(PREFIX + "verdicts.build") instanceof Counter);
+        assertTrue(metrics.get(PREFIX + "fallbacks.timeout") instanceof Timer);
+        assertTrue(metrics.get(PREFIX + "remote.queue-depth") instanceof Gauge);
+        assertTrue(metrics.get(PREFIX + "remote.queue-depth-by-host") instanceof Gauge);
+        assertTrue(metrics.get(PREFIX + "cache.size") instanceof Gauge);
+    }
+
+    @Test
+    public void testRecordedVerdictIsPublished() {
+        Counter skips = (Counter) metrics.get(PREFIX + "verdicts.skip");
+        long before = skips.getCount();
+        assertFalse(EvaluationStatistics.get().recordVerdict(false));
+        assertEquals(before + 1, skips.getCount());
+    }
+
+    private static TreeSet<String> withoutPrefix(Map<String, Metric> metrics) {
+        TreeSet<String> names = new TreeSet<>();
+        for (String name : metrics.keySet()) {
+            assertTrue(name, name.startsWith(PREFIX));
+            names.add(name.substring(PREFIX.length()));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import hudson.model.Executor;
+import hudson.model.Queue;
+import jenkins.plugins.git.GitSCMFileSystem;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FileSystemPoolTest {
+    private final FileSystemPool pool = new FileSystemPool();
+    private final Executor executor = mock(Executor.class);
+    private final Queue.Executable indexing = mock(Queue.Executable.class);
+    private final FileSystemPool.Scope scope = new FileSystemPool.Scope(executor, indexing);
+
+    @Test
+    public void testFirstOfferedFileSystemIsShared() {
+        when(executor.getCurrentExecutable()).thenReturn(indexing);
+        GitSCMFileSystem first = mock(GitSCMFileSystem.class);
+        pool.offer(scope, "source remote", first);
+        pool.offer(scope, "source remote", mock(GitSCMFileSystem.class));
+
+        assertSame(first, pool.lookup(new FileSystemPool.Scope(executor, indexing), "source remote"));
+        assertNull(pool.lookup(scope, "other remote"));
+        assertNull(pool.lookup(new FileSystemPool.Scope(executor, mock(Queue.Executable.class)), "source remote"));
+    }
+
+    @Test
+    public void testFinishedRunIsReleasedAtOnce() throws Exception {
+        // the executor still reports the run while the computation records its result
+        when(executor.getCurrentExecutable()).thenReturn(indexing);
+        GitSCMFileSystem fileSystem = mock(GitSCMFileSystem.class);
+        pool.offer(scope, "source remote", fileSystem);
+        BatchEvaluation batch = pool.claimBatch(scope, "source");
+        assertNotNull(batch);
+
+        pool.release();
+        verify(fileSystem, never()).close();
+
+        pool.release(indexing);
+        verify(fileSystem).close();
+        assertTrue(batch.isCancelled());
+        assertNull(pool.lookup(scope, "source remote"));
+        assertNull(pool.lookupBatch(scope, "source"));
+    }
+
+    @Test
+    public void testReleaserClosesRunsTheExecutorMovedOnFrom() throws Exception {
+        when(executor.getCurrentExecutable()).thenReturn(indexing);
+        GitSCMFileSystem fileSystem = mock(GitSCMFileSystem.class);
+        pool.offer(scope, "source remote", fileSystem);
+
+        // a run that ended without telling the pool
+        when(executor.getCurrentExecutable()).thenReturn(null);
+        pool.release();
+        verify(fileSystem).close();
+    }
+
+    @Test
+    public void testOtherRunsAreKept() throws Exception {
+        Executor otherExecutor = mock(Executor.class);
+        Queue.Executable other = mock(Queue.Executable.class);
+        when(executor.getCurrentExecutable()).thenReturn(indexing);
+        when(otherExecutor.getCurrentExecutable()).thenReturn(other);
+        GitSCMFileSystem fileSystem = mock(GitSCMFileSystem.class);
+        FileSystemPool.Scope otherScope = new FileSystemPool.Scope(otherExecutor, other);
+        pool.offer(otherScope, "source remote", fileSystem);
+
+        pool.release(indexing);
+        verify(fileSystem, never()).close();
+        assertSame(fileSystem, pool.lookup(otherScope, "source remote"));
+    }
+
+    @Test
+    public void testFinishedRunGetsNothing() {
+        when(executor.getCurrentExecutable()).thenReturn(null);
+        pool.offer(scope, "source remote", mock(GitSCMFileSystem.class));
+
+        assertNull(pool.lookup(scope, "source remote"));
+        assertNull(pool.claimBatch(scope, "source"));
+    }
+
+    @Test
+    public void testBatchIsClaimedOncePerRun() {
+        when(executor.getCurrentExecutable()).thenReturn(indexing);
+        BatchEvaluation batch = pool.claimBatch(scope, "source");
+
+        assertNotNull(batch);
+        assertNull(pool.claimBatch(scope, "source"));
+        assertSame(batch, pool.lookupBatch(scope, "source"));
+        assertFalse(batch.isCancelled());
+    }
+}
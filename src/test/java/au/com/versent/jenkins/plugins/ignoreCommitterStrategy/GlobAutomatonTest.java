@@ -0,0 +1,79 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GlobAutomatonTest {
+
+    @Test
+    public void testStarMatchesAnySequence() {
+        GlobAutomaton automaton = GlobAutomaton.compile(Collections.singletonList("a*b"), 100);
+
+        assertNotNull(automaton);
+        assertTrue(automaton.matches("ab"));
+        assertTrue(automaton.matches("axxbb"));
+        assertTrue(automaton.matches("abab"));
+        assertFalse(automaton.matches("aba"));
+        assertFalse(automaton.matches("b"));
+    }
+
+    @Test
+    public void testQuestionMarkMatchesOneCharacter() {
+        GlobAutomaton automaton = GlobAutomaton.compile(Collections.singletonList("a?c"), 100);
+
+        assertNotNull(automaton);
+        assertTrue(automaton.matches("abc"));
+        assertTrue(automaton.matches("a\u00e9c"));
+        assertFalse(automaton.matches("ac"));
+        assertFalse(automaton.matches("abbc"));
+    }
+
+    @Test
+    public void testPatternsShareOneAutomaton() {
+        GlobAutomaton automaton = GlobAutomaton.compile(Arrays.asList("*@bots.example.com", "ci-*@example.com",
+                "jenkins@*"), 100);
+
+        assertNotNull(automaton);
+        assertTrue(automaton.matches("x@bots.example.com"));
+        assertTrue(automaton.matches("ci-7@example.com"));
+        assertTrue(automaton.matches("jenkins@anywhere"));
+        assertFalse(automaton.matches("hello@example.com"));
+    }
+
+    @Test
+    public void testCompileStopsAtStateLimit() {
+        assertNull(GlobAutomaton.compile(Collections.singletonList("*a*b*c*d"), 3));
+        assertEquals(5, GlobAutomaton.compile(Collections.singletonList("abcd"), 5).size());
+    }
+}
@@ -33,6 +33,8 @@ import hudson.scm.SCM;
 import hudson.search.Search;
 import hudson.search.SearchIndex;
 import hudson.security.ACL;
+import hudson.util.FormValidation;
+import com.codahale.metrics.Counter;
 import jenkins.branch.MultiBranchProject;
 import jenkins.plugins.git.GitSCMSource;
 import jenkins.scm.api.SCMHead;
@@ -50,12 +52,15 @@ import org.junit.runner.RunWith;
 import org.jvnet.hudson.test.JenkinsRule;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.modules.junit4.PowerMockRunner;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
 
@@ -90,6 +95,9 @@ public class IgnoreCommitterStrategyTest {
         this.currRevision = new SCMRevisionImpl(head, "222");
         this.prevRevision = new SCMRevisionImpl(head, "111");
         this.scm = new GitSCM("http://example.com.au");
+
+        // every test evaluates the same revision pair with different changelogs
+        DecisionCache.get().clear();
     }
 
     @Test
@@ -156,13 +164,71 @@ public class IgnoreCommitterStrategyTest {
         assertTrue(setupIgnoreCommitterStrategy(commits));
     }
 
+    @Test
+    public void testIsAutomaticBuildAppliesTimeoutVerdictToSlowChangelog() throws Exception {
+
+        String commits = "";
+        for (String author : nonIgnoredAuthors) {
+            commits += getCommit(author);
+        }
+
+        IgnoreCommitterStrategy strategy = new IgnoreCommitterStrategy(String.join(",", ignoredAuthors), false);
+        strategy.setEvaluationTimeoutSeconds(1);
+        strategy.setTimeoutVerdict(TimeoutVerdict.SKIP);
+
+        assertFalse(setupIgnoreCommitterStrategy(strategy, commits, 10000));
+    }
+
+    @Test
+    public void testInterruptedEvaluationBuildsWithoutVerdict() throws Exception {
+        IgnoreCommitterStrategy strategy = new IgnoreCommitterStrategy(String.join(",", ignoredAuthors), false);
+        EvaluationStatistics statistics = EvaluationStatistics.get();
+        Counter builds = (Counter) statistics.getMetrics().get("ignore-committer-strategy.verdicts.build");
+        long buildsBefore = builds.getCount();
+        long interruptionsBefore = statistics.getInterruptions();
+
+        try {
+            // branch indexing is aborted while the changelog is read
+            assertTrue(setupIgnoreCommitterStrategy(strategy, invocation -> {
+                Thread.currentThread().interrupt();
+                throw new InterruptedException();
+            }));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(buildsBefore, builds.getCount());
+        assertEquals(interruptionsBefore + 1, statistics.getInterruptions());
+    }
+
+    @Test
+    public void testValidationRejectsPatternSplitAtComma() {
+        assertEquals(FormValidation.Kind.ERROR, IgnoreCommitterStrategy.DescriptorImpl.checkAuthors("/a{1,3}@x/").kind);
+        assertEquals(FormValidation.Kind.OK,
+                IgnoreCommitterStrategy.DescriptorImpl.checkAuthors("/a{1}@x/,jenkins@example.com").kind);
+    }
+
     private boolean setupIgnoreCommitterStrategy(String commits) throws Exception {
+        IgnoreCommitterStrategy strategy = new IgnoreCommitterStrategy(String.join(",", ignoredAuthors), false);
+
+        return setupIgnoreCommitterStrategy(strategy, commits, 0);
+    }
+
+    private boolean setupIgnoreCommitterStrategy(IgnoreCommitterStrategy strategy, String commits, long changelogDelayMillis) throws Exception {
+        // the changelog is written to whatever stream the strategy passes in
+        return setupIgnoreCommitterStrategy(strategy, invocation -> {
+            Thread.sleep(changelogDelayMillis);
+            OutputStream out = (OutputStream) invocation.getArguments()[1];
+            out.write(commits.getBytes(StandardCharsets.UTF_8));
+            return true;
+        });
+    }
+
+    private boolean setupIgnoreCommitterStrategy(IgnoreCommitterStrategy strategy, Answer<Boolean> changelog) throws Exception {
         // prepare mock GitSCMFileSystem to be returned by builderMock
         GitSCMFileSystem fileSystemMock = Mockito.mock(GitSCMFileSystem.class);
         // mock builderMock to build a mocked GitSCMFileSystem
         GitSCMFileSystem.BuilderImpl builderMock = Mockito.mock(GitSCMFileSystem.BuilderImpl.class);
-        // mock ByteArrayOutputStream to return preset response
-        ByteArrayOutputStream ByteArrayOutputStreamMock = Mockito.mock(ByteArrayOutputStream.class);
         // mock ownerMock
         SCMSourceOwner ownerMock = PowerMockito.mock(WorkflowMultiBranchProject.class);
 
@@ -171,19 +237,13 @@ public class IgnoreCommitterStrategyTest {
             PowerMockito.when(source.getOwner()).thenReturn(ownerMock);
 
             // set returns for mocked methods
-            Mockito.when(ByteArrayOutputStreamMock.toByteArray()).thenReturn(commits.getBytes());
             Mockito.when(builderMock.build(source.getOwner(), scm, currRevision)).thenReturn(fileSystemMock);
-            Mockito.when(fileSystemMock.changesSince(prevRevision, ByteArrayOutputStreamMock)).thenReturn(true);
+            Mockito.when(fileSystemMock.changesSince(Mockito.eq(prevRevision), Mockito.any(OutputStream.class))).thenAnswer(changelog);
 
             // mock classes in the tested target class to return mocked  objects when initiated
-            PowerMockito.whenNew(ByteArrayOutputStream.class).withNoArguments().thenReturn(ByteArrayOutputStreamMock);
             PowerMockito.whenNew(GitSCMFileSystem.BuilderImpl.class).withNoArguments().thenReturn(builderMock);
 
-            IgnoreCommitterStrategy IgnoreCommitterStrategy = new IgnoreCommitterStrategy(
-                    String.join(",", ignoredAuthors), false
-            );
-
-            return IgnoreCommitterStrategy.isAutomaticBuild(source, head, currRevision, prevRevision);
+            return strategy.isAutomaticBuild(source, head, currRevision, prevRevision);
         } catch (Exception e) {
             throw e;
         }
@@ -0,0 +1,181 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IgnoreListFilesTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final IgnoreListFiles files = new IgnoreListFiles();
+
+    @After
+    public void tearDown() throws Exception {
+        files.close();
+    }
+
+    @Test
+    public void testChangedFileIsSwappedIn() throws Exception {
+        File lists = tmp.newFolder("lists");
+        File compiled = new File(tmp.getRoot(), "compiled-lists");
+        File source = write(new File(lists, "bots.txt"), "jenkins@example.com\n", 0);
+
+        MappedEmailSet first = loaded(source, compiled);
+        assertSame(first, files.lookup(source, compiled));
+        assertEquals(1, files.getEntries());
+
+        long reloads = EvaluationStatistics.get().getListReloads();
+        write(source, "jenkins@example.com\nci@example.com\n", 10000);
+        await(() -> files.lookup(source, compiled) != first);
+
+        MappedEmailSet second = files.lookup(source, compiled);
+        assertEquals(2, second.size());
+        assertTrue(AuthorMatcher.compile(null).withEmailSet(second).matches("CI@example.com"));
+        assertEquals(2, files.getEntries());
+        assertTrue(EvaluationStatistics.get().getListReloads() > reloads);
+        // the previous version stays readable for evaluations still using it
+        assertTrue(AuthorMatcher.compile(null).withEmailSet(first).matches("jenkins@example.com"));
+        assertEquals(1, compiled.list().length);
+    }
+
+    @Test
+    public void testRemovedAndRecreatedFile() throws Exception {
+        File lists = tmp.newFolder("lists");
+        File compiled = new File(tmp.getRoot(), "compiled-lists");
+        File source = new File(lists, "bots.txt");
+
+        assertNull(files.lookup(source, compiled));
+        write(source, "jenkins@example.com\n", 0);
+        await(() -> files.lookup(source, compiled) != null);
+
+        assertTrue(source.delete());
+        await(() -> files.lookup(source, compiled) == null);
+        assertEquals(0, files.getEntries());
+    }
+
+    @Test
+    public void testUnchangedFileKeepsSet() throws Exception {
+        File lists = tmp.newFolder("lists");
+        File compiled = new File(tmp.getRoot(), "compiled-lists");
+        File source = write(new File(lists, "bots.txt"), "jenkins@example.com\n", 0);
+        MappedEmailSet first = loaded(source, compiled);
+
+        // another file of the directory changes, the set of this one is not replaced
+        File other = write(new File(lists, "other.txt"), "ci@example.com\n", 0);
+        MappedEmailSet second = loaded(other, compiled);
+        write(other, "ci@example.com\nbuild@example.com\n", 10000);
+        await(() -> files.lookup(other, compiled) != second);
+        assertSame(first, files.lookup(source, compiled));
+        assertFalse(files.lookup(source, compiled).contains("ci@example.com", 0, 14));
+    }
+
+    @Test
+    public void testCloseStopsWatcherThreads() throws Exception {
+        File lists = tmp.newFolder("lists");
+        File compiled = new File(tmp.getRoot(), "compiled-lists");
+        File source = write(new File(lists, "bots.txt"), "jenkins@example.com\n", 0);
+        MappedEmailSet first = loaded(source, compiled);
+        assertTrue(hasWatcherThreads());
+
+        files.close();
+        await(() -> !hasWatcherThreads());
+        // files keep their set, and are watched again on the next lookup of a new file
+        assertSame(first, files.lookup(source, compiled));
+        File other = write(new File(lists, "other.txt"), "ci@example.com\n", 0);
+        MappedEmailSet second = loaded(other, compiled);
+        write(other, "ci@example.com\nbuild@example.com\n", 10000);
+        await(() -> files.lookup(other, compiled) != second);
+    }
+
+    @Test
+    public void testFirstLookupLoadsOnLoaderThread() throws Exception {
+        File lists = tmp.newFolder("lists");
+        File compiled = new File(tmp.getRoot(), "compiled-lists");
+        File source = write(new File(lists, "bots.txt"), "jenkins@example.com\n", 0);
+
+        long reloads = EvaluationStatistics.get().getListReloads();
+        loaded(source, compiled);
+        assertTrue(EvaluationStatistics.get().getListReloads() > reloads);
+        // the compiled set is written by the loader, the looking up thread only queued it
+        assertEquals(1, compiled.list().length);
+        assertTrue(hasLoaderThread());
+    }
+
+    /**
+     * @return set of the file once the loader has loaded it
+     */
+    private MappedEmailSet loaded(File source, File compiled) throws InterruptedException {
+        await(() -> files.lookup(source, compiled) != null);
+        return files.lookup(source, compiled);
+    }
+
+    private static boolean hasLoaderThread() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("IgnoreCommitterStrategy.listLoader") && thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasWatcherThreads() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("IgnoreCommitterStrategy.list") && thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static File write(File file, String content, long ageMillis) throws Exception {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        // modification times may be as coarse as a second, make each version of the file distinct
+        file.setLastModified(file.lastModified() + ageMillis);
+        return file;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.getAsBoolean()) {
+            assertTrue("Timed out waiting for the file to be loaded again", System.nanoTime() < deadline);
+            Thread.sleep(50);
+        }
+    }
+}
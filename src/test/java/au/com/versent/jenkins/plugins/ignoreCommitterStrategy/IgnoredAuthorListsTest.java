@@ -0,0 +1,125 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IgnoredAuthorListsTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testStrategiesFollowReplacedList() {
+        IgnoredAuthorLists lists = IgnoredAuthorLists.get();
+        lists.setLists(Collections.singletonList(new AuthorList("bots", "jenkins@example.com")));
+        IgnoreCommitterStrategy first = strategy("", "bots");
+        IgnoreCommitterStrategy second = strategy(null, "bots");
+
+        String key = first.configurationKey();
+        assertEquals(key, second.configurationKey());
+        assertTrue(key.endsWith("|jenkins@example.com"));
+
+        lists.setLists(Collections.singletonList(new AuthorList("bots", "renovate@example.com")));
+        assertNotEquals(key, first.configurationKey());
+        assertTrue(first.configurationKey().endsWith("|renovate@example.com"));
+    }
+
+    @Test
+    public void testStrategyAuthorsAreIgnoredAlongWithList() {
+        IgnoredAuthorLists.get().setLists(Collections.singletonList(new AuthorList("bots", "jenkins@example.com")));
+
+        assertTrue(strategy("release@example.com", "bots").configurationKey()
+                .endsWith("|jenkins@example.com,release@example.com"));
+        // an unknown list leaves the authors of the strategy
+        assertTrue(strategy("release@example.com", "missing").configurationKey().endsWith("|release@example.com"));
+    }
+
+    @Test
+    public void testStrategyWithoutOwnAuthorsUsesMatcherOfList() {
+        AuthorList list = new AuthorList("bots", "@ci.example.com");
+        IgnoredAuthorLists.get().setLists(Collections.singletonList(list));
+
+        assertSame(list.getMatcher(), strategy("", "bots").ignoredAuthorsMatcher());
+        AuthorMatcher combined = strategy("release@example.com", "bots").ignoredAuthorsMatcher();
+        assertTrue(combined.matches("build@ci.example.com"));
+        assertTrue(combined.matches("release@example.com"));
+    }
+
+    @Test
+    public void testSavingFormKeepsLists() throws Exception {
+        IgnoredAuthorLists lists = IgnoredAuthorLists.get();
+        lists.setLists(Arrays.asList(new AuthorList("bots", "jenkins@example.com"),
+                new AuthorList("renovate", "renovate@example.com")));
+        j.configRoundtrip();
+
+        assertEquals(2, lists.getLists().size());
+        assertEquals("jenkins@example.com", IgnoredAuthorLists.lookup("bots").getAuthors());
+        assertEquals("renovate@example.com", IgnoredAuthorLists.lookup("renovate").getAuthors());
+
+        lists.setLists(Collections.emptyList());
+        j.configRoundtrip();
+        assertTrue(lists.getLists().isEmpty());
+    }
+
+    @Test
+    public void testFirstListWinsForDuplicateId() {
+        AuthorList first = new AuthorList(" bots ", "jenkins@example.com");
+        IgnoredAuthorLists.get().setLists(Arrays.asList(first, new AuthorList("bots", "renovate@example.com"),
+                new AuthorList("", "nobody@example.com")));
+
+        assertSame(first, IgnoredAuthorLists.lookup("bots"));
+        assertNull(IgnoredAuthorLists.lookup(""));
+    }
+
+    @Test
+    public void testListsAreCompiledAfterReload() {
+        IgnoredAuthorLists lists = IgnoredAuthorLists.get();
+        lists.setLists(Collections.singletonList(new AuthorList("bots", "@ci.example.com")));
+        lists.save();
+
+        AuthorList reloaded = new IgnoredAuthorLists().getLists().get(0);
+        assertEquals("bots", reloaded.getId());
+        assertTrue(reloaded.getMatcher().matches("Jenkins@build.CI.example.com"));
+        assertFalse(reloaded.getMatcher().matches("hello@example.com"));
+    }
+
+    private static IgnoreCommitterStrategy strategy(String ignoredAuthors, String authorListId) {
+        IgnoreCommitterStrategy strategy = new IgnoreCommitterStrategy(ignoredAuthors, false);
+        strategy.setAuthorListId(authorListId);
+        return strategy;
+    }
+}
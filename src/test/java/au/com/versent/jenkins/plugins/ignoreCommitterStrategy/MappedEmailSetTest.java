@@ -0,0 +1,150 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MappedEmailSetTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testContainsFoldedEmailsOfFile() throws Exception {
+        File source = write("list.txt", "# release bots\n"
+                + "Jenkins@Example.com\n"
+                + "\n"
+                + "  renovate@corp.example , dependabot@corp.example\n"
+                + "jenkins@example.com\n"
+                + "büro@example.com\n");
+        MappedEmailSet set = MappedEmailSet.load(source, new File(tmp.getRoot(), "list.set"));
+
+        assertEquals(4, set.size());
+        assertTrue(contains(set, "jenkins@example.com"));
+        assertTrue(contains(set, "  JENKINS@example.COM "));
+        assertTrue(contains(set, "dependabot@corp.example"));
+        assertTrue(contains(set, "BÜRO@example.com"));
+        assertFalse(contains(set, "jenkins@example.co"));
+        assertFalse(contains(set, "jenkins@example.com.au"));
+        assertFalse(contains(set, "# release bots"));
+        assertFalse(contains(set, ""));
+    }
+
+    @Test
+    public void testSkipsEntriesThatAreNotPlainEmails() throws Exception {
+        File source = write("list.txt", "@ci.example\n*[bot]@corp\n/bot-\\d+@corp/\nci@corp\n");
+        MappedEmailSet set = MappedEmailSet.load(source, new File(tmp.getRoot(), "list.set"));
+
+        assertEquals(1, set.size());
+        assertTrue(contains(set, "ci@corp"));
+        assertFalse(contains(set, "build@ci.example"));
+        assertFalse(contains(set, "*[bot]@corp"));
+    }
+
+    @Test
+    public void testLargeListHasNoFalseNegatives() throws Exception {
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            emails.add("user" + i + "@example.com");
+        }
+        MappedEmailSet set = MappedEmailSet.load(write("list.txt", String.join("\n", emails)),
+                new File(tmp.getRoot(), "list.set"));
+
+        assertEquals(emails.size(), set.size());
+        for (String email : emails) {
+            assertTrue(email, contains(set, email));
+        }
+        int hits = 0;
+        for (int i = 0; i < 20000; i++) {
+            if (contains(set, "other" + i + "@example.com")) {
+                hits++;
+            }
+        }
+        assertEquals(0, hits);
+    }
+
+    @Test
+    public void testCompiledSetIsReusedUntilSourceChanges() throws Exception {
+        File source = write("list.txt", "jenkins@example.com\n");
+        File compiled = new File(tmp.getRoot(), "list.set");
+        MappedEmailSet first = MappedEmailSet.load(source, compiled);
+        long compiledAt = compiled.lastModified();
+        compiled.setLastModified(compiledAt - 10000);
+
+        MappedEmailSet reloaded = MappedEmailSet.load(source, compiled);
+        assertEquals(first.getVersion(), reloaded.getVersion());
+        assertEquals(compiledAt - 10000, compiled.lastModified());
+
+        Files.write(source.toPath(), "jenkins@example.com\nci@example.com\n".getBytes(StandardCharsets.UTF_8));
+        MappedEmailSet changed = MappedEmailSet.load(source, compiled);
+        assertNotEquals(first.getVersion(), changed.getVersion());
+        assertEquals(2, changed.size());
+        assertTrue(contains(changed, "ci@example.com"));
+    }
+
+    @Test
+    public void testCorruptCompiledSetIsRebuilt() throws Exception {
+        File source = write("list.txt", "jenkins@example.com\n");
+        File compiled = new File(tmp.getRoot(), "list.set");
+        Files.write(compiled.toPath(), new byte[]{1, 2, 3});
+
+        MappedEmailSet set = MappedEmailSet.load(source, compiled);
+        assertTrue(contains(set, "jenkins@example.com"));
+    }
+
+    @Test
+    public void testMatcherIgnoresEmailsOfSet() throws Exception {
+        MappedEmailSet set = MappedEmailSet.load(write("list.txt", "jenkins@example.com\n"),
+                new File(tmp.getRoot(), "list.set"));
+        AuthorMatcher matcher = AuthorMatcher.compile("@ci.example").withEmailSet(set);
+
+        assertTrue(matcher.matches("Jenkins@example.com"));
+        assertTrue(matcher.matches("build@ci.example"));
+        assertFalse(matcher.matches("hello@example.com"));
+        assertFalse(AuthorMatcher.compile("@ci.example").matches("jenkins@example.com"));
+    }
+
+    private File write(String name, String content) throws Exception {
+        File file = new File(tmp.getRoot(), name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static boolean contains(MappedEmailSet set, String email) {
+        int start = CaseFolding.trimStart(email);
+        return set.contains(email, start, CaseFolding.trimEnd(email, start));
+    }
+}
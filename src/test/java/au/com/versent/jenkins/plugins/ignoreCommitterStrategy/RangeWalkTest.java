@@ -0,0 +1,140 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RangeWalkTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testAuthorEmailIsReadFromHeader() {
+        assertEquals("jenkins@example.com", RangeWalk.authorEmailOf(getCommit("author Jenkins <jenkins@example.com> 1363879004 +0100")));
+    }
+
+    @Test
+    public void testAuthorEmailMatchesChangelogParser() {
+        // GitChangeSet reads the email up to the last "> " on the author line
+        assertEquals("a>b@example.com", RangeWalk.authorEmailOf(getCommit("author A <a>b@example.com> 1363879004 +0100")));
+        assertEquals("", RangeWalk.authorEmailOf(getCommit("author A <> 1363879004 +0100")));
+    }
+
+    @Test
+    public void testMalformedAuthorIsNull() {
+        assertNull(RangeWalk.authorEmailOf(getCommit("author Jenkins jenkins@example.com 1363879004 +0100")));
+        assertNull(RangeWalk.authorEmailOf(getCommit("author Jenkins <jenkins@example.com>")));
+    }
+
+    @Test
+    public void testSharedWalkReadsCommonHistoryOnce() throws Exception {
+        AuthorMatcher matcher = AuthorMatcher.compile("jenkins@example.com");
+        try (Git git = Git.init().setDirectory(tmp.getRoot()).call()) {
+            RevCommit base = git.commit().setMessage("base").setAuthor("Hello", "hello@example.com").call();
+            RevCommit release = git.commit().setMessage("[task] Updated version.").setAuthor("Jenkins", "jenkins@example.com").call();
+            RevCommit feature = git.commit().setMessage("feature").setAuthor("Hello", "hello@example.com").call();
+
+            Map<ObjectId, String> authors = new HashMap<>();
+            try (RevWalk walk = new RevWalk(git.getRepository())) {
+                walk.setRetainBody(false);
+                assertFalse(RangeWalk.walk(walk, release.name(), base.name(), new ChangelogEvaluator(matcher, false), authors));
+                assertEquals(1, authors.size());
+
+                // the release commit is remembered from the first range, only the feature commit is read
+                ChangelogEvaluator evaluator = new ChangelogEvaluator(matcher, false);
+                assertFalse(RangeWalk.walk(walk, feature.name(), base.name(), evaluator, authors));
+                assertEquals(2, evaluator.getCommits());
+                assertEquals(2, authors.size());
+                assertEquals("jenkins@example.com", authors.get(release));
+            }
+        }
+    }
+
+    @Test
+    public void testNewHeadIsWalkedUpToChangelogLimit() throws Exception {
+        AuthorMatcher matcher = AuthorMatcher.compile("jenkins@example.com");
+        try (Git git = Git.init().setDirectory(tmp.getRoot()).call()) {
+            git.commit().setMessage("initial").setAuthor("Hello", "hello@example.com").call();
+            git.commit().setMessage("[task] Updated version.").setAuthor("Jenkins", "jenkins@example.com").call();
+            RevCommit head = git.commit().setMessage("[task] Updated version.").setAuthor("Jenkins", "jenkins@example.com").call();
+
+            // without a previous revision the whole history is the range, the walk stops where the changelog would
+            ChangelogEvaluator truncated = new ChangelogEvaluator(matcher, true).truncateAfter(2);
+            assertFalse(new RangeWalk(head.name(), null, truncated).invoke(git.getRepository()));
+            assertEquals(2, truncated.getCommits());
+
+            ChangelogEvaluator full = new ChangelogEvaluator(matcher, true);
+            assertTrue(new RangeWalk(head.name(), null, full).invoke(git.getRepository()));
+            assertEquals(3, full.getCommits());
+        }
+    }
+
+    @Test
+    public void testInterruptedWalkStops() throws Exception {
+        AuthorMatcher matcher = AuthorMatcher.compile("jenkins@example.com");
+        try (Git git = Git.init().setDirectory(tmp.getRoot()).call()) {
+            RevCommit base = git.commit().setMessage("base").setAuthor("Hello", "hello@example.com").call();
+            RevCommit feature = git.commit().setMessage("feature").setAuthor("Hello", "hello@example.com").call();
+
+            ChangelogEvaluator evaluator = new ChangelogEvaluator(matcher, false);
+            Thread.currentThread().interrupt();
+            try {
+                new RangeWalk(feature.name(), base.name(), evaluator).invoke(git.getRepository());
+                fail("walk was not interrupted");
+            } catch (IOException e) {
+                // InterruptedIOException from the walk, unless reading the objects gave up first
+                assertEquals(0, evaluator.getCommits());
+            } finally {
+                assertTrue(Thread.interrupted());
+            }
+        }
+    }
+
+    private byte[] getCommit(String authorLine) {
+        return ("tree 4b825dc642cb6eb9a060e54bf8d69288fbee4904\n"
+                + "parent 1111111111111111111111111111111111111111\n"
+                + authorLine + "\n"
+                + "committer Jenkins <jenkins@example.com> 1363879004 +0100\n"
+                + "\n"
+                + "[task] Updated version.\n").getBytes(StandardCharsets.UTF_8);
+    }
+}
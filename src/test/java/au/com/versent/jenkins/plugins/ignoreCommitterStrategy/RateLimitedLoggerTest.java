@@ -0,0 +1,91 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+
+public class RateLimitedLoggerTest {
+    private final List<String> messages = new ArrayList<>();
+    private final AtomicLong now = new AtomicLong();
+    private final Logger logger = Logger.getAnonymousLogger();
+
+    public RateLimitedLoggerTest() {
+        logger.setUseParentHandlers(false);
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                messages.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+    }
+
+    @Test
+    public void testRepeatsWithinIntervalAreSuppressed() {
+        RateLimitedLogger rateLimited = new RateLimitedLogger(logger, 1000, now::get);
+
+        rateLimited.log(Level.WARNING, "failed");
+        now.set(500);
+        rateLimited.log(Level.WARNING, "failed");
+        rateLimited.log(Level.WARNING, "failed");
+        rateLimited.log(Level.WARNING, "other");
+        now.set(1500);
+        rateLimited.log(Level.WARNING, "failed");
+
+        assertEquals(3, messages.size());
+        assertEquals("failed", messages.get(0));
+        assertEquals("other", messages.get(1));
+        assertEquals("failed (2 identical messages suppressed)", messages.get(2));
+    }
+
+    @Test
+    public void testDisabledLevelIsNotCounted() {
+        RateLimitedLogger rateLimited = new RateLimitedLogger(logger, 1000, now::get);
+        logger.setLevel(Level.SEVERE);
+
+        rateLimited.log(Level.WARNING, "failed");
+        logger.setLevel(Level.WARNING);
+        rateLimited.log(Level.WARNING, "failed");
+
+        assertEquals(1, messages.size());
+        assertEquals("failed", messages.get(0));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RemoteLimiterTest {
+
+    @Test
+    public void testRemotesAreKeyedByHost() {
+        assertEquals("github.com", RemoteLimiter.keyOf("https://github.com/jenkinsci/git-plugin.git"));
+        assertEquals("github.com", RemoteLimiter.keyOf("git@GitHub.com:jenkinsci/git-plugin.git"));
+        assertEquals("git.example.com", RemoteLimiter.keyOf("ssh://git@git.example.com:7999/team/repo.git"));
+        assertEquals("/srv/git/repo.git", RemoteLimiter.keyOf("/srv/git/repo.git"));
+    }
+
+    @Test
+    public void testConcurrentOperationsPerRemoteAreCapped() throws Exception {
+        RemoteLimiter limiter = new RemoteLimiter(1);
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter;
+        try (RemoteLimiter.Permit permit = limiter.acquire("github.com")) {
+            waiter = new Thread(() -> {
+                try (RemoteLimiter.Permit second = limiter.acquire("github.com")) {
+                    acquired.countDown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            waiter.start();
+
+            // other remotes have their own limit
+            limiter.acquire("gitlab.com").close();
+            assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+            assertEquals(1, limiter.getWaiting());
+            assertEquals(Integer.valueOf(1), limiter.getWaitingByRemote().get("github.com"));
+            assertEquals(Integer.valueOf(0), limiter.getWaitingByRemote().get("gitlab.com"));
+        }
+        assertTrue(acquired.await(10, TimeUnit.SECONDS));
+        waiter.join();
+        assertEquals(0, limiter.getWaiting());
+        assertEquals(Integer.valueOf(0), limiter.getWaitingByRemote().get("github.com"));
+    }
+
+    @Test
+    public void testNoLimit() throws Exception {
+        RemoteLimiter limiter = new RemoteLimiter(0);
+        try (RemoteLimiter.Permit first = limiter.acquire("github.com");
+             RemoteLimiter.Permit second = limiter.acquire("github.com")) {
+            assertEquals(0, limiter.getWaiting());
+            assertTrue(limiter.getWaitingByRemote().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testConcurrentCallersShareOneComputation() throws Exception {
+        SingleFlight<String, Boolean> flights = new SingleFlight<>();
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<Boolean> leader = executor.submit(() -> flights.run("main", () -> {
+                computations.incrementAndGet();
+                started.countDown();
+                await(release);
+                return true;
+            }));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            long coalesced = EvaluationStatistics.get().getCoalesced();
+            Future<Boolean> follower = executor.submit(() -> flights.run("main", () -> {
+                computations.incrementAndGet();
+                return false;
+            }));
+            // another key is not held up
+            assertFalse(flights.run("feature", () -> false));
+            while (EvaluationStatistics.get().getCoalesced() == coalesced) {
+                Thread.sleep(10);
+            }
+            assertFalse(follower.isDone());
+
+            release.countDown();
+            assertTrue(leader.get(10, TimeUnit.SECONDS));
+            assertTrue(follower.get(10, TimeUnit.SECONDS));
+            assertEquals(1, computations.get());
+            assertEquals(0, flights.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailureReachesEveryCaller() throws Exception {
+        SingleFlight<String, Boolean> flights = new SingleFlight<>();
+        IllegalStateException failure = new IllegalStateException("broken");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> leader = executor.submit(() -> flights.run("main", () -> {
+                started.countDown();
+                await(release);
+                throw failure;
+            }));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            long coalesced = EvaluationStatistics.get().getCoalesced();
+            Future<Boolean> follower = executor.submit(() -> flights.run("main", () -> true));
+            while (EvaluationStatistics.get().getCoalesced() == coalesced) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            for (Future<Boolean> caller : Arrays.asList(leader, follower)) {
+                try {
+                    caller.get(10, TimeUnit.SECONDS);
+                    fail("failure was not propagated");
+                } catch (ExecutionException e) {
+                    assertSame(failure, e.getCause());
+                }
+            }
+            assertEquals(0, flights.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFollowerComputesAgainWhenLeaderIsInterrupted() throws Exception {
+        SingleFlight<String, Boolean> flights = new SingleFlight<>();
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> leader = executor.submit(() -> flights.run("main", () -> {
+                computations.incrementAndGet();
+                started.countDown();
+                try {
+                    new CountDownLatch(1).await(10, TimeUnit.SECONDS);
+                    return false;
+                } catch (InterruptedException e) {
+                    // as evaluateChangeset does, no verdict and the thread left interrupted
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            long coalesced = EvaluationStatistics.get().getCoalesced();
+            Future<Boolean> follower = executor.submit(() -> flights.run("main", () -> {
+                computations.incrementAndGet();
+                return true;
+            }));
+            while (EvaluationStatistics.get().getCoalesced() == coalesced) {
+                Thread.sleep(10);
+            }
+
+            leader.cancel(true);
+            assertTrue(follower.get(10, TimeUnit.SECONDS));
+            assertEquals(2, computations.get());
+            assertEquals(0, flights.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInterruptedLeaderKeepsItsOwnResult() throws Exception {
+        SingleFlight<String, Boolean> flights = new SingleFlight<>();
+        try {
+            assertNull(flights.run("main", () -> {
+                Thread.currentThread().interrupt();
+                return null;
+            }));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        assertTrue(flights.run("main", () -> true));
+        assertEquals(0, flights.size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
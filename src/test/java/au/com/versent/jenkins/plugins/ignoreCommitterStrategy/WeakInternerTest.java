@@ -0,0 +1,75 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class WeakInternerTest {
+
+    @Test
+    public void testEqualStringsShareOneCopy() {
+        WeakInterner interner = new WeakInterner();
+        String first = interner.intern(new String("true|0|true|jenkins@example.com"));
+        String second = new String("true|0|true|jenkins@example.com");
+
+        assertNotSame(first, second);
+        assertSame(first, interner.intern(second));
+        assertEquals(1, interner.size());
+    }
+
+    @Test
+    public void testUnusedStringsAreDropped() throws Exception {
+        WeakInterner interner = new WeakInterner();
+        String kept = interner.intern(new String("kept"));
+        for (int i = 0; i < 100; i++) {
+            interner.intern("true|0|true|list.txt@" + i);
+        }
+
+        for (int attempt = 0; attempt < 50 && interner.size() > 1; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(1, interner.size());
+        assertSame(kept, interner.intern(new String("kept")));
+    }
+
+    @Test
+    public void testStrategyConfigurationKeysAreDropped() throws Exception {
+        int before = IgnoreCommitterStrategy.STRINGS.size();
+        for (int i = 0; i < 100; i++) {
+            IgnoreCommitterStrategy.intern("true|0|true|list.txt@" + i + "-" + System.nanoTime());
+        }
+
+        for (int attempt = 0; attempt < 50 && IgnoreCommitterStrategy.STRINGS.size() > before; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertTrue(IgnoreCommitterStrategy.STRINGS.size() <= before);
+    }
+}
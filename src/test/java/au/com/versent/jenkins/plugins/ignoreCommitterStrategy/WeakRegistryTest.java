@@ -0,0 +1,68 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Versent
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package au.com.versent.jenkins.plugins.ignoreCommitterStrategy;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class WeakRegistryTest {
+
+    @Test
+    public void testEqualKeysShareOneValue() {
+        WeakRegistry<String, Object> registry = new WeakRegistry<>();
+        AtomicInteger created = new AtomicInteger();
+
+        Object first = registry.get("jenkins@example.com", key -> new Object[]{key, created.incrementAndGet()});
+        Object second = registry.get(new String("jenkins@example.com"), key -> new Object[]{key, created.incrementAndGet()});
+        Object other = registry.get("hello@example.com", key -> new Object[]{key, created.incrementAndGet()});
+
+        assertSame(first, second);
+        assertNotSame(first, other);
+        assertEquals(2, created.get());
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    public void testUnusedValuesAreDropped() throws Exception {
+        WeakRegistry<Integer, Object> registry = new WeakRegistry<>();
+        Object kept = registry.get(0, key -> new Object());
+        for (int i = 1; i <= 100; i++) {
+            registry.get(i, key -> new Object());
+        }
+
+        for (int attempt = 0; attempt < 50 && registry.size() > 1; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+            // lookups purge the entries of collected values
+            registry.get(0, key -> new Object());
+        }
+        assertEquals(1, registry.size());
+        assertSame(kept, registry.get(0, key -> new Object()));
+    }
+}